@@ -0,0 +1,64 @@
+package net.saturn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Reports cost per sample over one 1024-wide row, the access pattern Terrain uses
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerlinNoiseBenchmark {
+    private static final int ROW = 1024;
+
+    private PerlinNoise noise;
+    private int row;
+    private double[] out;
+    private double[] scratch;
+
+    @Setup
+    public void setUp() {
+        noise = new PerlinNoise(1234L);
+        out = new double[ROW];
+        scratch = new double[ROW];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROW)
+    public double noiseRow() {
+        double y = (row++ & 1023) * 0.01;
+        double sum = 0;
+        for (int x = 0; x < ROW; x++) {
+            sum += noise.noise(x * 0.01, y);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROW)
+    public double[] noiseRowBatch() {
+        noise.noiseRow(0, row++ & 1023, 0.01, out, ROW);
+        return out;
+    }
+
+    // Five octaves per sample, as Terrain generates them
+    @Benchmark
+    @OperationsPerInvocation(ROW)
+    public double[] fbmRow() {
+        noise.fbmRow(0, row++ & 1023, 0.01, 5, 0.5, out, scratch, ROW);
+        return out;
+    }
+}
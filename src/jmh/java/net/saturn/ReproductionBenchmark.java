@@ -0,0 +1,48 @@
+package net.saturn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Measures parent selection only, so repeated invocations see the same population
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReproductionBenchmark {
+    @Param({"500", "5000", "100000"})
+    public int population;
+
+    private World world;
+
+    @Setup
+    public void setUp() {
+        world = new World(1000, 1000, population, 1234L);
+
+        // Age everyone past maturity and top up energy so the whole population is eligible
+        CreatureStore creatures = world.getCreatureStore();
+        for (int i = 0; i < creatures.size(); i++) {
+            for (int tick = 0; tick <= 50; tick++) {
+                creatures.move(i, world.getTerrain(), 1.0);
+            }
+            creatures.consume(i, 100);
+        }
+    }
+
+    @Benchmark
+    public int selectParents() {
+        return world.selectParents();
+    }
+}
@@ -0,0 +1,57 @@
+package net.saturn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Every iteration restarts from the same seeded world, since populations drift quickly
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = 50)
+@Measurement(iterations = 10, batchSize = 50)
+@Fork(1)
+public class WorldUpdateBenchmark {
+    private static final long SEED = 1234L;
+
+    @Param({"500", "5000", "50000"})
+    public int population;
+
+    @Param({"100", "2000", "20000"})
+    public int foodSpawns;
+
+    @Param({"1"})
+    public int threads;
+
+    private World world;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        world = new World(1000, 1000, population, SEED);
+        world.spawnFoodInBiomes(foodSpawns);
+        world.setParallelism(threads);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        world.shutdown();
+    }
+
+    @Benchmark
+    public World update() {
+        world.update();
+        return world;
+    }
+}
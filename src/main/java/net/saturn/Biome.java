@@ -3,35 +3,68 @@ package net.saturn;
 import java.awt.*;
 
 public enum Biome {
-    WATER(new Color(30, 90, 180), 0.0, 0.3, "Water"),
-    SAND(new Color(240, 220, 130), 0.3, 0.45, "Sand"),
-    GRASS(new Color(80, 160, 60), 0.45, 0.65, "Grass"),
-    FOREST(new Color(40, 120, 40), 0.65, 0.80, "Forest"),
-    MOUNTAIN(new Color(120, 120, 130), 0.80, 0.90, "Mountain"),
-    SNOW(new Color(240, 250, 255), 0.90, 1.0, "Snow");
-
-    private final Color color;
+    WATER(0x1E5AB4, 0.0, 0.3, "Water", 0.0, 0, 0),
+    SAND(0xF0DC82, 0.3, 0.45, "Sand", 0.7, 3, 0),
+    GRASS(0x50A03C, 0.45, 0.65, "Grass", 1.0, 10, 5),
+    FOREST(0x287828, 0.65, 0.80, "Forest", 0.8, 15, 8),
+    MOUNTAIN(0x787882, 0.80, 0.90, "Mountain", 0.6, 2, 0),
+    SNOW(0xF0FAFF, 0.90, 1.0, "Snow", 0.5, 0, 0);
+
+    private static final Biome[] VALUES = values();
+
+    // Lookup tables indexed by biome id, so per-cell queries on packed terrain need no branches
+    static final double[] SPEED_MODIFIER = new double[VALUES.length];
+    static final boolean[] WALKABLE = new boolean[VALUES.length];
+    static final int[] FOOD_SPAWN_RATE = new int[VALUES.length];
+    static final int[] WATER_SPAWN_RATE = new int[VALUES.length];
+
+    static {
+        for (Biome biome : VALUES) {
+            SPEED_MODIFIER[biome.ordinal()] = biome.speedModifier;
+            WALKABLE[biome.ordinal()] = biome.isWalkable();
+            FOOD_SPAWN_RATE[biome.ordinal()] = biome.foodSpawnRate;
+            WATER_SPAWN_RATE[biome.ordinal()] = biome.waterSpawnRate;
+        }
+    }
+
+    // Colours are kept as packed RGB so the simulation can run without loading AWT
+    private final int rgb;
     private final double minHeight;
     private final double maxHeight;
     private final String name;
+    private final double speedModifier;
+    private final int foodSpawnRate;
+    private final int waterSpawnRate;
 
-    Biome(Color color, double minHeight, double maxHeight, String name) {
-        this.color = color;
+    Biome(int rgb, double minHeight, double maxHeight, String name,
+          double speedModifier, int foodSpawnRate, int waterSpawnRate) {
+        this.rgb = rgb;
         this.minHeight = minHeight;
         this.maxHeight = maxHeight;
         this.name = name;
+        this.speedModifier = speedModifier;
+        this.foodSpawnRate = foodSpawnRate;
+        this.waterSpawnRate = waterSpawnRate;
+    }
+
+    public int getRgb() {
+        return rgb;
     }
 
     public Color getColor() {
-        return color;
+        return Colors.BY_BIOME[ordinal()];
     }
 
     public String getName() {
         return name;
     }
 
+    public static Biome fromId(int id) {
+        return VALUES[id];
+    }
+
     public static Biome fromHeight(double height) {
-        for (Biome biome : values()) {
+        for (Biome biome : VALUES) {
             if (height >= biome.minHeight && height < biome.maxHeight) {
                 return biome;
             }
@@ -44,33 +77,24 @@ public enum Biome {
     }
 
     public double getSpeedModifier() {
-        switch (this) {
-            case WATER: return 0.0;
-            case SAND: return 0.7;
-            case GRASS: return 1.0;
-            case FOREST: return 0.8;
-            case MOUNTAIN: return 0.6;
-            case SNOW: return 0.5;
-            default: return 1.0;
-        }
+        return speedModifier;
     }
 
     public int getFoodSpawnRate() {
-        switch (this) {
-            case GRASS: return 10;
-            case FOREST: return 15;
-            case SAND: return 3;
-            case MOUNTAIN: return 2;
-            default: return 0;
-        }
+        return foodSpawnRate;
     }
 
     public int getWaterSpawnRate() {
-        switch (this) {
-            case WATER: return 0;
-            case GRASS: return 5;
-            case FOREST: return 8;
-            default: return 0;
+        return waterSpawnRate;
+    }
+
+    private static final class Colors {
+        static final Color[] BY_BIOME = new Color[VALUES.length];
+
+        static {
+            for (Biome biome : VALUES) {
+                BY_BIOME[biome.ordinal()] = new Color(biome.rgb);
+            }
         }
     }
-}
\ No newline at end of file
+}
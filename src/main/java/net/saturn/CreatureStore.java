@@ -0,0 +1,301 @@
+package net.saturn;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CreatureStore {
+    public static final double MUTATION_RATE = 0.1;
+    // Size of one creature in a checkpoint: five float, five int and one long column
+    static final int CHECKPOINT_BYTES = 5 * Float.BYTES + 5 * Integer.BYTES + Long.BYTES;
+
+    private float[] speed;
+    private float[] size;
+    private float[] sense;
+    private float[] vx;
+    private float[] vy;
+    private int[] energy;
+    private int[] thirst;
+    private int[] x;
+    private int[] y;
+    private int[] age;
+    private long[] rng;
+    private int count;
+
+    public CreatureStore(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        speed = new float[capacity];
+        size = new float[capacity];
+        sense = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        energy = new int[capacity];
+        thirst = new int[capacity];
+        x = new int[capacity];
+        y = new int[capacity];
+        age = new int[capacity];
+        rng = new long[capacity];
+    }
+
+    public int add(double speed, double size, double sense, int x, int y, long seed) {
+        ensureCapacity(count + 1);
+        int i = count++;
+        this.speed[i] = (float) clampTrait(speed);
+        this.size[i] = (float) clampTrait(size);
+        this.sense[i] = (float) clampTrait(sense);
+        this.energy[i] = 100;
+        this.thirst[i] = 0;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.age[i] = 0;
+        this.rng[i] = seed;
+        this.vx[i] = (float) ((Rng.nextDouble(rng, i) - 0.5) * 2);
+        this.vy[i] = (float) ((Rng.nextDouble(rng, i) - 0.5) * 2);
+        return i;
+    }
+
+    // Moves the last creature into slot i; returns the slot it came from, or -1 if none moved
+    public int swapRemove(int i) {
+        int last = --count;
+        if (i == last) {
+            return -1;
+        }
+        speed[i] = speed[last];
+        size[i] = size[last];
+        sense[i] = sense[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        energy[i] = energy[last];
+        thirst[i] = thirst[last];
+        x[i] = x[last];
+        y[i] = y[last];
+        age[i] = age[last];
+        rng[i] = rng[last];
+        return last;
+    }
+
+    // Mutations draw from the first parent's stream; the child gets a fresh stream from seed
+    public int reproduce(int a, int b, long seed) {
+        double newSpeed = (speed[a] + speed[b]) / 2.0;
+        double newSize = (size[a] + size[b]) / 2.0;
+        double newSense = (sense[a] + sense[b]) / 2.0;
+
+        if (Rng.nextDouble(rng, a) < MUTATION_RATE) {
+            newSpeed += (Rng.nextDouble(rng, a) - 0.5) * 2;
+        }
+        if (Rng.nextDouble(rng, a) < MUTATION_RATE) {
+            newSize += (Rng.nextDouble(rng, a) - 0.5) * 2;
+        }
+        if (Rng.nextDouble(rng, a) < MUTATION_RATE) {
+            newSense += (Rng.nextDouble(rng, a) - 0.5) * 2;
+        }
+
+        int childX = (x[a] + x[b]) / 2;
+        int childY = (y[a] + y[b]) / 2;
+
+        return add(newSpeed, newSize, newSense, childX, childY, seed);
+    }
+
+    public void move(int i, Terrain terrain, double speedModifier) {
+        int worldWidth = terrain.getWidth();
+        int worldHeight = terrain.getHeight();
+        // Draws only from this creature's own stream so rows can be moved on any thread
+        double velX = vx[i] + (Rng.nextDouble(rng, i) - 0.5) * 0.5;
+        double velY = vy[i] + (Rng.nextDouble(rng, i) - 0.5) * 0.5;
+
+        double maxVel = speed[i] * 0.5 * speedModifier;
+        double vel = Math.sqrt(velX * velX + velY * velY);
+        if (vel > maxVel) {
+            velX = (velX / vel) * maxVel;
+            velY = (velY / vel) * maxVel;
+        }
+
+        int px = (int) (x[i] + velX);
+        int py = (int) (y[i] + velY);
+
+        if (px < 0) { px = 0; velX = Math.abs(velX); }
+        if (px >= worldWidth) { px = worldWidth - 1; velX = -Math.abs(velX); }
+        if (py < 0) { py = 0; velY = Math.abs(velY); }
+        if (py >= worldHeight) { py = worldHeight - 1; velY = -Math.abs(velY); }
+
+        // Stop at the shore and bounce off it along whichever axis ran into water
+        long step = terrain.shoreStep(x[i], y[i], px, py);
+        if (Terrain.blockedX(step)) { velX = -velX; }
+        if (Terrain.blockedY(step)) { velY = -velY; }
+
+        x[i] = Terrain.stepX(step);
+        y[i] = Terrain.stepY(step);
+        vx[i] = (float) velX;
+        vy[i] = (float) velY;
+        age[i]++;
+    }
+
+    public void moveTowards(int i, int targetX, int targetY) {
+        double dx = targetX - x[i];
+        double dy = targetY - y[i];
+        double dist = Math.sqrt(dx * dx + dy * dy);
+
+        if (dist > 0) {
+            vx[i] += (float) ((dx / dist) * speed[i] * 0.1);
+            vy[i] += (float) ((dy / dist) * speed[i] * 0.1);
+        }
+    }
+
+    void setPosition(int i, int x, int y) {
+        this.x[i] = x;
+        this.y[i] = y;
+    }
+
+    public double getFitness(int i) {
+        return speed[i] + sense[i] - (size[i] * 0.3);
+    }
+
+    public void consume(int i, int amount) {
+        energy[i] += amount;
+    }
+
+    public void drink(int i, int amount) {
+        thirst[i] = Math.max(0, thirst[i] - amount);
+    }
+
+    public void metabolize(int i) {
+        energy[i] -= (int) (size[i] * 0.5 + 1);
+    }
+
+    public void increaseThirst(int i) {
+        thirst[i] += 1;
+        if (thirst[i] > 100) {
+            energy[i] -= 2;
+        }
+    }
+
+    public boolean isAlive(int i) {
+        return energy[i] > 0 && thirst[i] < 150;
+    }
+
+    // Thirst killed a dead creature if it hit the limit, or if the thirst penalty took its last energy
+    boolean diedOfThirst(int i) {
+        return thirst[i] >= 150 || (thirst[i] > 100 && energy[i] > -2);
+    }
+
+    public boolean canReproduce(int i) {
+        return energy[i] > 120 && age[i] > 50 && thirst[i] < 80;
+    }
+
+    public void kill(int i) {
+        energy[i] = 0;
+    }
+
+    public void spendReproductionEnergy(int i) {
+        energy[i] -= 40;
+    }
+
+    public int size() { return count; }
+    public int capacity() { return x.length; }
+    public boolean isEmpty() { return count == 0; }
+
+    public double getSpeed(int i) { return speed[i]; }
+    public double getSize(int i) { return size[i]; }
+    public double getSense(int i) { return sense[i]; }
+    public int getEnergy(int i) { return energy[i]; }
+    public int getThirst(int i) { return thirst[i]; }
+    public int getX(int i) { return x[i]; }
+    public int getY(int i) { return y[i]; }
+    public int getAge(int i) { return age[i]; }
+
+    public Creature get(int i) {
+        return new Creature(this, i);
+    }
+
+    // Read-only view for the GUI; elements are only valid until the next update
+    public List<Creature> asList() {
+        return new AbstractList<Creature>() {
+            @Override
+            public Creature get(int index) {
+                return CreatureStore.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    // Writes every live row column by column, as bulk copies
+    void writeTo(ByteBuffer out) {
+        putFloats(out, speed);
+        putFloats(out, size);
+        putFloats(out, sense);
+        putFloats(out, vx);
+        putFloats(out, vy);
+        putInts(out, energy);
+        putInts(out, thirst);
+        putInts(out, x);
+        putInts(out, y);
+        putInts(out, age);
+        out.asLongBuffer().put(rng, 0, count);
+        out.position(out.position() + count * Long.BYTES);
+    }
+
+    // Replaces the whole store with count rows in the layout writeTo produces
+    void readFrom(ByteBuffer in, int count) {
+        ensureCapacity(count);
+        this.count = count;
+        getFloats(in, speed);
+        getFloats(in, size);
+        getFloats(in, sense);
+        getFloats(in, vx);
+        getFloats(in, vy);
+        getInts(in, energy);
+        getInts(in, thirst);
+        getInts(in, x);
+        getInts(in, y);
+        getInts(in, age);
+        in.asLongBuffer().get(rng, 0, count);
+        in.position(in.position() + count * Long.BYTES);
+    }
+
+    private void putFloats(ByteBuffer out, float[] column) {
+        out.asFloatBuffer().put(column, 0, count);
+        out.position(out.position() + count * Float.BYTES);
+    }
+
+    private void putInts(ByteBuffer out, int[] column) {
+        out.asIntBuffer().put(column, 0, count);
+        out.position(out.position() + count * Integer.BYTES);
+    }
+
+    private void getFloats(ByteBuffer in, float[] column) {
+        in.asFloatBuffer().get(column, 0, count);
+        in.position(in.position() + count * Float.BYTES);
+    }
+
+    private void getInts(ByteBuffer in, int[] column) {
+        in.asIntBuffer().get(column, 0, count);
+        in.position(in.position() + count * Integer.BYTES);
+    }
+
+    private static double clampTrait(double value) {
+        return Math.max(0.1, Math.min(10, value));
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= x.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, x.length * 2);
+        speed = Arrays.copyOf(speed, newCapacity);
+        size = Arrays.copyOf(size, newCapacity);
+        sense = Arrays.copyOf(sense, newCapacity);
+        vx = Arrays.copyOf(vx, newCapacity);
+        vy = Arrays.copyOf(vy, newCapacity);
+        energy = Arrays.copyOf(energy, newCapacity);
+        thirst = Arrays.copyOf(thirst, newCapacity);
+        x = Arrays.copyOf(x, newCapacity);
+        y = Arrays.copyOf(y, newCapacity);
+        age = Arrays.copyOf(age, newCapacity);
+        rng = Arrays.copyOf(rng, newCapacity);
+    }
+}
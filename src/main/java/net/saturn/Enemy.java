@@ -1,23 +1,52 @@
 package net.saturn;
 
+import java.nio.ByteBuffer;
+
 public class Enemy {
+    // Size of one enemy in a checkpoint
+    static final int CHECKPOINT_BYTES = 3 * Integer.BYTES + 3 * Double.BYTES + Long.BYTES;
+
     private int x, y;
     private double vx, vy;
     private int energy;
     private final double speed;
+    private long rngState;
 
-    public Enemy(int x, int y) {
+    public Enemy(int x, int y, long seed) {
         this.x = x;
         this.y = y;
-        this.vx = (Math.random() - 0.5) * 2;
-        this.vy = (Math.random() - 0.5) * 2;
+        this.rngState = seed;
+        this.vx = (nextRandom() - 0.5) * 2;
+        this.vy = (nextRandom() - 0.5) * 2;
         this.energy = 150;
-        this.speed = 2.5 + Math.random() * 2;
+        this.speed = 2.5 + nextRandom() * 2;
+    }
+
+    static Enemy readFrom(ByteBuffer in) {
+        return new Enemy(in.getInt(), in.getInt(), in.getDouble(), in.getDouble(),
+                in.getInt(), in.getDouble(), in.getLong());
+    }
+
+    private Enemy(int x, int y, double vx, double vy, int energy, double speed, long rngState) {
+        this.x = x;
+        this.y = y;
+        this.vx = vx;
+        this.vy = vy;
+        this.energy = energy;
+        this.speed = speed;
+        this.rngState = rngState;
+    }
+
+    void writeTo(ByteBuffer out) {
+        out.putInt(x).putInt(y).putDouble(vx).putDouble(vy)
+                .putInt(energy).putDouble(speed).putLong(rngState);
     }
 
-    public void move(int worldWidth, int worldHeight, double speedModifier) {
-        vx += (Math.random() - 0.5) * 0.3;
-        vy += (Math.random() - 0.5) * 0.3;
+    public void move(Terrain terrain, double speedModifier) {
+        int worldWidth = terrain.getWidth();
+        int worldHeight = terrain.getHeight();
+        vx += (nextRandom() - 0.5) * 0.3;
+        vy += (nextRandom() - 0.5) * 0.3;
 
         double maxVel = speed * speedModifier;
         double vel = Math.sqrt(vx * vx + vy * vy);
@@ -26,13 +55,21 @@ public class Enemy {
             vy = (vy / vel) * maxVel;
         }
 
-        x += vx;
-        y += vy;
+        int px = (int) (x + vx);
+        int py = (int) (y + vy);
+
+        if (px < 0) { px = 0; vx = Math.abs(vx); }
+        if (px >= worldWidth) { px = worldWidth - 1; vx = -Math.abs(vx); }
+        if (py < 0) { py = 0; vy = Math.abs(vy); }
+        if (py >= worldHeight) { py = worldHeight - 1; vy = -Math.abs(vy); }
 
-        if (x < 0) { x = 0; vx = Math.abs(vx); }
-        if (x >= worldWidth) { x = worldWidth - 1; vx = -Math.abs(vx); }
-        if (y < 0) { y = 0; vy = Math.abs(vy); }
-        if (y >= worldHeight) { y = worldHeight - 1; vy = -Math.abs(vy); }
+        // Stop at the shore and bounce off it along whichever axis ran into water
+        long step = terrain.shoreStep(x, y, px, py);
+        if (Terrain.blockedX(step)) { vx = -vx; }
+        if (Terrain.blockedY(step)) { vy = -vy; }
+
+        x = Terrain.stepX(step);
+        y = Terrain.stepY(step);
 
         energy--;
     }
@@ -54,6 +91,11 @@ public class Enemy {
         return Math.sqrt(dx * dx + dy * dy);
     }
 
+    private double nextRandom() {
+        rngState += Rng.GOLDEN_GAMMA;
+        return Rng.toUnitDouble(Rng.mix64(rngState));
+    }
+
     public void feed() {
         energy += 100;
     }
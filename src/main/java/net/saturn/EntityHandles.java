@@ -0,0 +1,71 @@
+package net.saturn;
+
+import java.util.Arrays;
+
+// Stable generational handles for rows of a swap-removed store. A handle packs a slot and the
+// slot's generation; removing a row bumps the generation, so old handles stop resolving instead
+// of pointing at whichever entity reuses the slot. Allocation, removal and lookup are all O(1).
+final class EntityHandles {
+    static final long NONE = -1;
+
+    private int[] rowOfSlot = new int[16]; // -1 while the slot is free
+    private int[] generationOfSlot = new int[16];
+    private int[] slotOfRow = new int[16];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int slotCount;
+
+    // Gives the entity now stored at row a handle; rows must be allocated as they are appended
+    long allocate(int row) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = slotCount++;
+            if (slot == rowOfSlot.length) {
+                rowOfSlot = Arrays.copyOf(rowOfSlot, slot * 2);
+                generationOfSlot = Arrays.copyOf(generationOfSlot, slot * 2);
+            }
+        }
+        if (row >= slotOfRow.length) {
+            slotOfRow = Arrays.copyOf(slotOfRow, Math.max(row + 1, slotOfRow.length * 2));
+        }
+        rowOfSlot[slot] = row;
+        slotOfRow[row] = slot;
+        return handle(slot);
+    }
+
+    // The entity at row is gone; if the store then moves its last row into the hole, call move too
+    void release(int row) {
+        int slot = slotOfRow[row];
+        rowOfSlot[slot] = -1;
+        generationOfSlot[slot]++;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    void move(int fromRow, int toRow) {
+        int slot = slotOfRow[fromRow];
+        rowOfSlot[slot] = toRow;
+        slotOfRow[toRow] = slot;
+    }
+
+    long handleOf(int row) {
+        return handle(slotOfRow[row]);
+    }
+
+    // Row of a live entity, or -1 if the handle is stale or was never issued
+    int rowOf(long handle) {
+        int slot = (int) handle;
+        if (handle < 0 || slot >= slotCount || (generationOfSlot[slot] & 0x7FFFFFFF) != (int) (handle >>> 32)) {
+            return -1;
+        }
+        return rowOfSlot[slot];
+    }
+
+    private long handle(int slot) {
+        return ((long) (generationOfSlot[slot] & 0x7FFFFFFF) << 32) | slot;
+    }
+}
@@ -4,21 +4,30 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
 
 public class EvolutionSimulationGUI extends JFrame {
-    public static final double MUTATION_RATE = 0.1;
+    public static final double MUTATION_RATE = CreatureStore.MUTATION_RATE;
     public static final int FOOD_AMOUNT = 150;
 
     private static final int WIDTH = 1200;
     private static final int HEIGHT = 800;
     private static final int WORLD_SIZE = 1000;
+    private static final int FRAME_DELAY = 16;
 
-    private World world;
+    private SimulationLoop simulation;
     private SimulationPanel simulationPanel;
     private StatsPanel statsPanel;
-    private Timer timer;
-    private int generation = 0;
-    private boolean running = false;
+    // Only repaints; ticks run on the simulation thread, so neither rate holds back the other
+    private Timer frameTimer;
+    private long lastFrameSequence = -1;
 
     public EvolutionSimulationGUI() {
         setTitle("Evolution Simulator");
@@ -26,30 +35,71 @@ public class EvolutionSimulationGUI extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
 
-        world = new World(WORLD_SIZE, WORLD_SIZE, 500);
-
-        simulationPanel = new SimulationPanel(world);
+        simulationPanel = new SimulationPanel();
         statsPanel = new StatsPanel();
+        simulation = createSimulation(50);
+        // A new loop starts with nothing selected, so picks never carry over to another world
+        simulationPanel.setSelectionListener(handle -> simulation.selectCreature(handle));
 
         add(simulationPanel, BorderLayout.CENTER);
-        add(statsPanel, BorderLayout.EAST);
+        // Scrolls when the labels and charts are taller than the window
+        JScrollPane statsScroll = new JScrollPane(statsPanel,
+                ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED, ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+        statsScroll.setBorder(BorderFactory.createEmptyBorder());
+        add(statsScroll, BorderLayout.EAST);
         add(createControlPanel(), BorderLayout.SOUTH);
 
-        timer = new Timer(50, new ActionListener() {
+        frameTimer = new Timer(FRAME_DELAY, new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                if (running) {
-                    world.update();
-                    generation = world.getGeneration();
-                    simulationPanel.repaint();
-                    statsPanel.update(world);
-                }
+                showLatestSnapshot();
             }
         });
+        frameTimer.start();
+        showLatestSnapshot();
 
         setLocationRelativeTo(null);
     }
 
+    private SimulationLoop createSimulation(int tickDelay) {
+        return createSimulation(new World(WORLD_SIZE, WORLD_SIZE, 500), tickDelay);
+    }
+
+    private SimulationLoop createSimulation(World world, int tickDelay) {
+        world.setParallelism(Runtime.getRuntime().availableProcessors());
+        SimulationLoop loop = new SimulationLoop(world, tickDelay);
+        loop.start();
+        return loop;
+    }
+
+    private void showLatestSnapshot() {
+        RenderSnapshot snapshot = simulation.acquireSnapshot();
+        if (snapshot.sequence != lastFrameSequence) {
+            lastFrameSequence = snapshot.sequence;
+            simulationPanel.setSnapshot(snapshot);
+            statsPanel.update(snapshot);
+            simulationPanel.repaint();
+        }
+    }
+
+    // Swaps in a new world on a fresh loop, keeping the speed settings
+    private void replaceWorld(World world) {
+        int tickDelay = simulation.getTickDelay();
+        boolean turbo = simulation.isTurbo();
+        simulation.stop();
+        simulation.getWorld().shutdown();
+        simulation = createSimulation(world, tickDelay);
+        simulation.setTurbo(turbo);
+        // Sequences restart with the new loop
+        lastFrameSequence = -1;
+        showLatestSnapshot();
+    }
+
+    private void showCheckpointError(String action, IOException e) {
+        JOptionPane.showMessageDialog(this, "Could not " + action + " checkpoint: " + e.getMessage(),
+                "Checkpoint", JOptionPane.ERROR_MESSAGE);
+    }
+
     private JPanel createControlPanel() {
         JPanel panel = new JPanel();
         panel.setBackground(new Color(40, 40, 50));
@@ -59,38 +109,72 @@ public class EvolutionSimulationGUI extends JFrame {
         JButton resetButton = new JButton("Reset");
         JButton speedUpButton = new JButton("Speed Up");
         JButton slowDownButton = new JButton("Slow Down");
+        JToggleButton turboButton = new JToggleButton("Turbo");
+        JToggleButton profileButton = new JToggleButton("Profile");
+        JButton saveButton = new JButton("Save");
+        JButton loadButton = new JButton("Load");
 
-        startButton.addActionListener(e -> {
-            running = true;
-            timer.start();
-        });
+        startButton.addActionListener(e -> simulation.setRunning(true));
 
-        pauseButton.addActionListener(e -> running = false);
+        pauseButton.addActionListener(e -> simulation.setRunning(false));
 
-        resetButton.addActionListener(e -> {
-            running = false;
-            world = new World(WORLD_SIZE, WORLD_SIZE, 500);
-            generation = 0;
-            simulationPanel.setWorld(world);
-            simulationPanel.repaint();
-            statsPanel.update(world);
+        resetButton.addActionListener(e -> replaceWorld(new World(WORLD_SIZE, WORLD_SIZE, 500)));
+
+        JFileChooser checkpointChooser = new JFileChooser();
+
+        saveButton.addActionListener(e -> {
+            if (checkpointChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            simulation.runPaused(() -> {
+                try {
+                    simulation.getWorld().save(checkpointChooser.getSelectedFile().toPath());
+                } catch (IOException ex) {
+                    showCheckpointError("save", ex);
+                }
+            });
+        });
+
+        loadButton.addActionListener(e -> {
+            if (checkpointChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            try {
+                replaceWorld(World.load(checkpointChooser.getSelectedFile().toPath()));
+            } catch (IOException ex) {
+                showCheckpointError("load", ex);
+            }
         });
 
         speedUpButton.addActionListener(e -> {
-            int delay = timer.getDelay();
-            if (delay > 10) timer.setDelay(delay - 10);
+            int delay = simulation.getTickDelay();
+            if (delay > 10) simulation.setTickDelay(delay - 10);
         });
 
         slowDownButton.addActionListener(e -> {
-            int delay = timer.getDelay();
-            if (delay < 200) timer.setDelay(delay + 10);
+            int delay = simulation.getTickDelay();
+            if (delay < 200) simulation.setTickDelay(delay + 10);
         });
 
+        // Fast-forward: ticks run flat out and only the last state of each frame is drawn
+        turboButton.addActionListener(e -> simulation.setTurbo(turboButton.isSelected()));
+
+        // Phase timings only exist when the JVM was started with profiling on
+        profileButton.setEnabled(TickProfiler.ENABLED);
+        profileButton.setToolTipText(TickProfiler.ENABLED
+                ? "Show per-phase tick timings"
+                : "Start with -Devolution.profile=true to enable");
+        profileButton.addActionListener(e -> simulationPanel.setProfileOverlay(profileButton.isSelected()));
+
         panel.add(startButton);
         panel.add(pauseButton);
         panel.add(resetButton);
         panel.add(speedUpButton);
         panel.add(slowDownButton);
+        panel.add(turboButton);
+        panel.add(profileButton);
+        panel.add(saveButton);
+        panel.add(loadButton);
 
         return panel;
     }
@@ -104,96 +188,373 @@ public class EvolutionSimulationGUI extends JFrame {
 }
 
 class SimulationPanel extends JPanel {
-    private World world;
-
-    public SimulationPanel(World world) {
-        this.world = world;
+    private static final Color BACKGROUND = new Color(20, 25, 35);
+    private static final Font OVERLAY_FONT = new Font("Arial", Font.BOLD, 20);
+    // Premultiplied (255, 200, 0) at alpha 150
+    private static final int ENERGY_BAR = (150 << 24) | (150 << 16) | (118 << 8);
+    private static final double MAX_ZOOM = 8.0;
+    private static final double ZOOM_STEP = 1.25;
+    // Below this zoom creatures are drawn as a density layer instead of sprites
+    private static final double DENSITY_ZOOM = 0.5;
+    private static final int DENSITY_CELL = 4;
+    private static final Font PROFILE_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color PROFILE_BACKGROUND = new Color(0, 0, 0, 170);
+    // A click picks the nearest creature drawn within this many pixels, or clears the pick
+    private static final int PICK_RADIUS = 12;
+    // Premultiplied opaque white
+    private static final int SELECTION_MARK = 0xFFFFFFFF;
+
+    private final SpriteCache sprites = new SpriteCache();
+    private final FrameBuffer frameBuffer = new FrameBuffer();
+    private RenderSnapshot snapshot;
+    private TerrainMipmap mipmap;
+    private int[] densityCounts = new int[0];
+
+    // Screen pixels per world unit, and the world point at the panel's top-left corner
+    private double zoom = 1.0;
+    private double viewX;
+    private double viewY;
+    private boolean viewInitialized;
+    private boolean profileOverlay;
+    private LongConsumer selectionListener = handle -> { };
+
+    public SimulationPanel() {
         setPreferredSize(new Dimension(800, 800));
-        setBackground(new Color(20, 25, 35));
+        setBackground(BACKGROUND);
+
+        MouseAdapter navigation = new MouseAdapter() {
+            private Point dragStart;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragStart = e.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (dragStart != null) {
+                    viewX -= (e.getX() - dragStart.x) / zoom;
+                    viewY -= (e.getY() - dragStart.y) / zoom;
+                    dragStart = e.getPoint();
+                    repaint();
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoomAt(e.getX(), e.getY(), Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()));
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    viewInitialized = false;
+                    repaint();
+                } else if (e.getClickCount() == 1) {
+                    selectionListener.accept(creatureAt(e.getX(), e.getY()));
+                }
+            }
+        };
+        addMouseListener(navigation);
+        addMouseMotionListener(navigation);
+        addMouseWheelListener(navigation);
     }
 
-    public void setWorld(World world) {
-        this.world = world;
+    // The snapshot must not be written while it is set here; SimulationLoop guarantees that on the EDT
+    void setSnapshot(RenderSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    // Receives the handle of the creature the user clicked, or EntityHandles.NONE to clear the pick
+    void setSelectionListener(LongConsumer selectionListener) {
+        this.selectionListener = selectionListener;
+    }
+
+    // Handle of the creature drawn nearest to the screen point, within PICK_RADIUS pixels
+    private long creatureAt(int screenX, int screenY) {
+        RenderSnapshot frame = snapshot;
+        if (frame == null) {
+            return EntityHandles.NONE;
+        }
+        int best = -1;
+        long bestDistSq = (long) PICK_RADIUS * PICK_RADIUS + 1;
+        for (int i = 0; i < frame.creatureCount; i++) {
+            long dx = toScreenX(frame.creatureX[i]) - screenX;
+            long dy = toScreenY(frame.creatureY[i]) - screenY;
+            if (dx * dx + dy * dy < bestDistSq) {
+                bestDistSq = dx * dx + dy * dy;
+                best = i;
+            }
+        }
+        return best < 0 ? EntityHandles.NONE : frame.creatureHandle[best];
+    }
+
+    void setProfileOverlay(boolean profileOverlay) {
+        this.profileOverlay = profileOverlay;
+        repaint();
+    }
+
+    // Keeps the world point under (screenX, screenY) fixed while zooming
+    void zoomAt(int screenX, int screenY, double factor) {
+        RenderSnapshot frame = snapshot;
+        double minZoom = frame == null ? 0 : fitZoom(frame) / 2;
+        double newZoom = Math.max(minZoom, Math.min(MAX_ZOOM, zoom * factor));
+        viewX += screenX / zoom - screenX / newZoom;
+        viewY += screenY / zoom - screenY / newZoom;
+        zoom = newZoom;
+        repaint();
+    }
+
+    private double fitZoom(RenderSnapshot frame) {
+        return Math.min((double) Math.max(1, getWidth()) / frame.width, (double) Math.max(1, getHeight()) / frame.height);
+    }
+
+    // Starts at 1:1 centred, as before, unless the world is larger than the panel
+    private void resetView(RenderSnapshot frame) {
+        zoom = Math.min(1.0, fitZoom(frame));
+        viewX = frame.width / 2.0 - getWidth() / (2 * zoom);
+        viewY = frame.height / 2.0 - getHeight() / (2 * zoom);
+        viewInitialized = true;
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        RenderSnapshot frame = snapshot;
+        if (frame == null || getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
         Graphics2D g2d = (Graphics2D) g;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        int offsetX = (getWidth() - world.getWidth()) / 2;
-        int offsetY = (getHeight() - world.getHeight()) / 2;
+        // A new world gets a new pyramid and a fresh view
+        if (mipmap == null || mipmap.getTerrain() != frame.terrain) {
+            mipmap = new TerrainMipmap(frame.terrain);
+            viewInitialized = false;
+        }
+        if (!viewInitialized) {
+            resetView(frame);
+        }
 
-        // Draw terrain
-        g2d.drawImage(world.getTerrain().getTerrainImage(), offsetX, offsetY, null);
+        // Only the part of the panel inside the clip is composited and drawn
+        Rectangle clip = g2d.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        clip = clip.intersection(new Rectangle(0, 0, getWidth(), getHeight()));
+        if (!clip.isEmpty()) {
+            frameBuffer.ensureSize(getWidth(), getHeight());
+            drawWorld(frame, clip);
+            g2d.drawImage(frameBuffer.getImage(),
+                    clip.x, clip.y, clip.x + clip.width, clip.y + clip.height,
+                    clip.x, clip.y, clip.x + clip.width, clip.y + clip.height, null);
+        }
 
-        // Draw water (blue puddles)
-        for (Water water : world.getWater()) {
-            g2d.setColor(new Color(50, 150, 255, 180));
-            g2d.fillOval(offsetX + water.x - 8, offsetY + water.y - 8, 16, 16);
-            g2d.setColor(new Color(100, 180, 255, 120));
-            g2d.fillOval(offsetX + water.x - 5, offsetY + water.y - 5, 10, 10);
+        // Draw generation counter
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2d.setColor(Color.WHITE);
+        g2d.setFont(OVERLAY_FONT);
+        g2d.drawString("Generation: " + frame.generation, 20, 30);
+        g2d.drawString("Population: " + frame.creatureCount, 20, 55);
+        g2d.drawString("Enemies: " + frame.enemyCount, 20, 80);
+        g2d.drawString(String.format("Ticks/s: %.0f%s", frame.ticksPerSecond, frame.turbo ? " (turbo)" : ""), 20, 105);
+        g2d.drawString(String.format("Zoom: %.2fx", zoom), 20, 130);
+        if (frame.selectedHandle != EntityHandles.NONE) {
+            int row = frame.selectedRow;
+            g2d.setFont(PROFILE_FONT);
+            g2d.drawString(row < 0 ? "Selected creature has died"
+                    : String.format("Selected: speed %.1f  size %.1f  sense %.1f  energy %d  thirst %d  age %d",
+                    frame.creatureSpeed[row], frame.creatureSize[row], frame.creatureSense[row],
+                    frame.creatureEnergy[row], frame.selectedThirst, frame.selectedAge), 20, 150);
         }
 
-        // Draw food (green dots)
-        for (Food food : world.getFood()) {
-            g2d.setColor(new Color(100, 200, 100));
-            g2d.fillOval(offsetX + food.x - 3, offsetY + food.y - 3, 6, 6);
+        if (profileOverlay && TickProfiler.ENABLED) {
+            drawProfile(g2d, frame.profile);
         }
+    }
 
-        // Draw enemies (red triangles)
-        for (Enemy enemy : world.getEnemies()) {
-            int size = 12;
-            int x = offsetX + enemy.getX();
-            int y = offsetY + enemy.getY();
+    // Table of last, mean and p99 microseconds per phase in the top-right corner
+    private void drawProfile(Graphics2D g2d, TickProfiler.Summary profile) {
+        TickProfiler.Phase[] phases = TickProfiler.Phase.ALL;
+        String[] lines = new String[phases.length + 4];
+        lines[0] = String.format("%-15s %9s %9s %9s", "phase", "last us", "mean us", "p99 us");
+        for (int i = 0; i <= phases.length; i++) {
+            lines[i + 1] = String.format("%-15s %9.1f %9.1f %9.1f", i < phases.length ? phases[i].label : "tick",
+                    profile.lastMicros[i], profile.meanMicros[i], profile.p99Micros[i]);
+        }
+        lines[phases.length + 2] = String.format("queries %d  removed %d", profile.lastQueries, profile.lastRemoved);
+        lines[phases.length + 3] = String.format("births %d  spawned %d  ticks %d",
+                profile.lastBirths, profile.lastSpawned, profile.ticks);
+
+        g2d.setFont(PROFILE_FONT);
+        FontMetrics metrics = g2d.getFontMetrics();
+        int lineHeight = metrics.getHeight();
+        int boxWidth = metrics.stringWidth(lines[0]) + 16;
+        int boxHeight = lines.length * lineHeight + 12;
+        int x = getWidth() - boxWidth - 10;
+        int y = 10;
+        g2d.setColor(PROFILE_BACKGROUND);
+        g2d.fillRect(x, y, boxWidth, boxHeight);
+        g2d.setColor(Color.WHITE);
+        for (int i = 0; i < lines.length; i++) {
+            g2d.drawString(lines[i], x + 8, y + 6 + metrics.getAscent() + i * lineHeight);
+        }
+    }
+
+    // Composites terrain and entities into the frame buffer for the screen rectangle clip.
+    // Each entity is skipped unless its sprite overlaps the clip.
+    private void drawWorld(RenderSnapshot frame, Rectangle clip) {
+        Graphics2D fg = frameBuffer.getGraphics();
+        fg.setClip(clip);
+        fg.setColor(BACKGROUND);
+        fg.fillRect(clip.x, clip.y, clip.width, clip.height);
+        mipmap.draw(fg, viewX, viewY, zoom, getWidth(), getHeight());
+
+        int minX = clip.x;
+        int minY = clip.y;
+        int maxX = clip.x + clip.width;
+        int maxY = clip.y + clip.height;
+
+        if (zoom < DENSITY_ZOOM) {
+            drawDensity(frame, minX, minY, maxX, maxY);
+        } else {
+            // Draw water (blue puddles)
+            drawSprites(sprites.water(), frame.waterXY, frame.waterCount, minX, minY, maxX, maxY);
+
+            // Draw food (green dots)
+            drawSprites(sprites.food(), frame.foodXY, frame.foodCount, minX, minY, maxX, maxY);
+        }
 
-            int[] xPoints = {x, x - size/2, x + size/2};
-            int[] yPoints = {y - size/2, y + size/2, y + size/2};
+        // Draw enemies (red triangles); there are few enough to show at any zoom
+        drawSprites(sprites.enemy(), frame.enemyXY, frame.enemyCount, minX, minY, maxX, maxY);
 
-            g2d.setColor(new Color(255, 50, 50));
-            g2d.fillPolygon(xPoints, yPoints, 3);
-            g2d.setColor(new Color(180, 0, 0));
-            g2d.drawPolygon(xPoints, yPoints, 3);
+        if (zoom < DENSITY_ZOOM) {
+            drawSelection(frame);
+            return;
         }
 
-        // Draw creatures
-        for (Creature creature : world.getCreatures()) {
-            int size = (int) (creature.getSize() * 3 + 5);
-            int x = offsetX + creature.getX() - size / 2;
-            int y = offsetY + creature.getY() - size / 2;
-
-            // Color based on speed (red) and sense (blue)
-            int red = Math.min(255, (int) (creature.getSpeed() * 25));
-            int blue = Math.min(255, (int) (creature.getSense() * 25));
-            g2d.setColor(new Color(red, 100, blue));
-            g2d.fillOval(x, y, size, size);
-
-            // Draw energy bar
-            int energyWidth = (int) ((creature.getEnergy() / 150.0) * size);
-            g2d.setColor(new Color(255, 200, 0, 150));
-            g2d.fillRect(x, y - 5, energyWidth, 3);
+        // Draw creatures, coloured by speed (red) and sense (blue), with an energy bar above.
+        // Sprites keep their pixel size at every zoom, like map markers.
+        for (int i = 0; i < frame.creatureCount; i++) {
+            int size = SpriteCache.creatureSize(frame.creatureSize[i]);
+            int x = toScreenX(frame.creatureX[i]) - size / 2;
+            int y = toScreenY(frame.creatureY[i]) - size / 2;
+            // The energy bar sits 5 pixels above the sprite
+            if (!overlaps(x, y - 5, size, size + 5, minX, minY, maxX, maxY)) {
+                continue;
+            }
+
+            frameBuffer.draw(sprites.creature(size,
+                    SpriteCache.colorLevel(frame.creatureSpeed[i]),
+                    SpriteCache.colorLevel(frame.creatureSense[i])), x, y);
+
+            int energyWidth = (int) ((frame.creatureEnergy[i] / 150.0) * size);
+            frameBuffer.fillRect(x, y - 5, energyWidth, 3, ENERGY_BAR);
         }
+        drawSelection(frame);
+    }
 
-        // Draw generation counter
-        g2d.setColor(Color.WHITE);
-        g2d.setFont(new Font("Arial", Font.BOLD, 20));
-        g2d.drawString("Generation: " + world.getGeneration(), 20, 30);
-        g2d.drawString("Population: " + world.getCreatures().size(), 20, 55);
-        g2d.drawString("Enemies: " + world.getEnemies().size(), 20, 80);
+    // Square outline around the selected creature, on top of everything else
+    private void drawSelection(RenderSnapshot frame) {
+        int row = frame.selectedRow;
+        if (row < 0) {
+            return;
+        }
+        int size = SpriteCache.creatureSize(frame.creatureSize[row]) + 8;
+        int x = toScreenX(frame.creatureX[row]) - size / 2;
+        int y = toScreenY(frame.creatureY[row]) - size / 2;
+        frameBuffer.fillRect(x, y, size, 2, SELECTION_MARK);
+        frameBuffer.fillRect(x, y + size - 2, size, 2, SELECTION_MARK);
+        frameBuffer.fillRect(x, y + 2, 2, size - 4, SELECTION_MARK);
+        frameBuffer.fillRect(x + size - 2, y + 2, 2, size - 4, SELECTION_MARK);
+    }
+
+    private void drawSprites(SpriteCache.Sprite sprite, int[] xy, int count, int minX, int minY, int maxX, int maxY) {
+        for (int i = 0; i < count; i++) {
+            int x = toScreenX(xy[2 * i]) - sprite.width / 2;
+            int y = toScreenY(xy[2 * i + 1]) - sprite.height / 2;
+            if (overlaps(x, y, sprite.width, sprite.height, minX, minY, maxX, maxY)) {
+                frameBuffer.draw(sprite, x, y);
+            }
+        }
+    }
+
+    // Counts creatures per screen cell and shades each occupied cell by log count, so the cost
+    // of the layer is bounded by the screen area rather than by how many creatures overlap
+    private void drawDensity(RenderSnapshot frame, int minX, int minY, int maxX, int maxY) {
+        int cellsX = (getWidth() + DENSITY_CELL - 1) / DENSITY_CELL;
+        int cellsY = (getHeight() + DENSITY_CELL - 1) / DENSITY_CELL;
+        if (densityCounts.length < cellsX * cellsY) {
+            densityCounts = new int[cellsX * cellsY];
+        }
+        Arrays.fill(densityCounts, 0, cellsX * cellsY, 0);
+
+        for (int i = 0; i < frame.creatureCount; i++) {
+            int x = toScreenX(frame.creatureX[i]);
+            int y = toScreenY(frame.creatureY[i]);
+            if (x >= minX && x < maxX && y >= minY && y < maxY) {
+                densityCounts[(y / DENSITY_CELL) * cellsX + x / DENSITY_CELL]++;
+            }
+        }
+
+        for (int cy = minY / DENSITY_CELL; cy < Math.min(cellsY, (maxY + DENSITY_CELL - 1) / DENSITY_CELL); cy++) {
+            for (int cx = minX / DENSITY_CELL; cx < Math.min(cellsX, (maxX + DENSITY_CELL - 1) / DENSITY_CELL); cx++) {
+                int count = densityCounts[cy * cellsX + cx];
+                if (count > 0) {
+                    frameBuffer.fillRect(cx * DENSITY_CELL, cy * DENSITY_CELL, DENSITY_CELL, DENSITY_CELL,
+                            densityColor(count));
+                }
+            }
+        }
+    }
+
+    // Premultiplied orange whose opacity grows with log2 of the count
+    private static int densityColor(int count) {
+        int alpha = Math.min(240, 90 + 30 * (31 - Integer.numberOfLeadingZeros(count)));
+        return (alpha << 24) | (alpha << 16) | ((alpha * 140 / 255) << 8);
+    }
+
+    private int toScreenX(int worldX) {
+        return (int) Math.floor((worldX - viewX) * zoom);
+    }
+
+    private int toScreenY(int worldY) {
+        return (int) Math.floor((worldY - viewY) * zoom);
+    }
+
+    private static boolean overlaps(int x, int y, int w, int h, int minX, int minY, int maxX, int maxY) {
+        return x + w > minX && x < maxX && y + h > minY && y < maxY;
     }
 }
 
 class StatsPanel extends JPanel {
+    private JLabel seedLabel;
     private JLabel genLabel;
+    private JLabel rateLabel;
     private JLabel popLabel;
     private JLabel speedLabel;
     private JLabel sizeLabel;
     private JLabel senseLabel;
+    private JLabel energyLabel;
+    private JLabel ageLabel;
+    private JLabel speedRangeLabel;
+    private JLabel sizeRangeLabel;
+    private JLabel senseRangeLabel;
+    private JLabel energyRangeLabel;
+    private JLabel ageRangeLabel;
     private JLabel foodLabel;
+    private final TimeSeriesChart[] charts = {
+            new TimeSeriesChart("Population", new String[]{"creatures"}, new Color[]{new Color(255, 170, 40)},
+                    List.of(h -> h.population)),
+            new TimeSeriesChart("Enemies", new String[]{"enemies"}, new Color[]{new Color(255, 70, 70)},
+                    List.of(h -> h.enemies)),
+            new TimeSeriesChart("Food", new String[]{"food"}, new Color[]{new Color(100, 200, 100)},
+                    List.of(h -> h.food)),
+            new TimeSeriesChart("Avg traits", new String[]{"speed", "size", "sense"},
+                    new Color[]{new Color(240, 90, 90), new Color(200, 200, 200), new Color(90, 150, 255)},
+                    List.of(h -> h.averageSpeed, h -> h.averageSize, h -> h.averageSense))
+    };
 
     public StatsPanel() {
-        setPreferredSize(new Dimension(300, 600));
         setBackground(new Color(30, 30, 40));
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
         setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
@@ -205,22 +566,45 @@ class StatsPanel extends JPanel {
         add(title);
         add(Box.createRigidArea(new Dimension(0, 20)));
 
+        seedLabel = createStatLabel("Seed: -");
         genLabel = createStatLabel("Generation: 0");
+        rateLabel = createStatLabel("Ticks/s: 0");
         popLabel = createStatLabel("Population: 0");
         speedLabel = createStatLabel("Avg Speed: 0.00");
         sizeLabel = createStatLabel("Avg Size: 0.00");
         senseLabel = createStatLabel("Avg Sense: 0.00");
+        energyLabel = createStatLabel("Avg Energy: 0");
+        ageLabel = createStatLabel("Avg Age: 0");
+        speedRangeLabel = createRangeLabel();
+        sizeRangeLabel = createRangeLabel();
+        senseRangeLabel = createRangeLabel();
+        energyRangeLabel = createRangeLabel();
+        ageRangeLabel = createRangeLabel();
         foodLabel = createStatLabel("Food Available: 0");
 
+        add(seedLabel);
         add(genLabel);
+        add(rateLabel);
         add(popLabel);
         add(Box.createRigidArea(new Dimension(0, 15)));
         add(speedLabel);
+        add(speedRangeLabel);
         add(sizeLabel);
+        add(sizeRangeLabel);
         add(senseLabel);
+        add(senseRangeLabel);
+        add(energyLabel);
+        add(energyRangeLabel);
+        add(ageLabel);
+        add(ageRangeLabel);
         add(Box.createRigidArea(new Dimension(0, 15)));
         add(foodLabel);
 
+        for (TimeSeriesChart chart : charts) {
+            add(Box.createRigidArea(new Dimension(0, 10)));
+            add(chart);
+        }
+
         add(Box.createRigidArea(new Dimension(0, 30)));
         JTextArea info = new JTextArea(
                 "How it works:\n\n" +
@@ -247,6 +631,14 @@ class StatsPanel extends JPanel {
         add(info);
     }
 
+    private JLabel createRangeLabel() {
+        JLabel label = new JLabel(" ");
+        label.setFont(new Font("Arial", Font.PLAIN, 11));
+        label.setForeground(new Color(150, 150, 165));
+        label.setAlignmentX(Component.LEFT_ALIGNMENT);
+        return label;
+    }
+
     private JLabel createStatLabel(String text) {
         JLabel label = new JLabel(text);
         label.setFont(new Font("Arial", Font.PLAIN, 14));
@@ -255,12 +647,150 @@ class StatsPanel extends JPanel {
         return label;
     }
 
-    public void update(World world) {
-        genLabel.setText("Generation: " + world.getGeneration());
-        popLabel.setText("Population: " + world.getCreatures().size());
-        speedLabel.setText(String.format("Avg Speed: %.2f", world.getAverageSpeed()));
-        sizeLabel.setText(String.format("Avg Size: %.2f", world.getAverageSize()));
-        senseLabel.setText(String.format("Avg Sense: %.2f", world.getAverageSense()));
-        foodLabel.setText("Food Available: " + world.getFood().size());
+    void update(RenderSnapshot snapshot) {
+        seedLabel.setText("Seed: " + snapshot.seed);
+        genLabel.setText("Generation: " + snapshot.generation);
+        rateLabel.setText(String.format("Ticks/s: %.0f", snapshot.ticksPerSecond));
+        popLabel.setText("Population: " + snapshot.creatureCount);
+        PopulationStats stats = snapshot.stats;
+        speedLabel.setText(String.format("Avg Speed: %.2f", stats.getSpeed().getMean()));
+        sizeLabel.setText(String.format("Avg Size: %.2f", stats.getSize().getMean()));
+        senseLabel.setText(String.format("Avg Sense: %.2f", stats.getSense().getMean()));
+        energyLabel.setText(String.format("Avg Energy: %.0f", stats.getEnergy().getMean()));
+        ageLabel.setText(String.format("Avg Age: %.0f", stats.getAge().getMean()));
+        speedRangeLabel.setText(formatRange(stats.getSpeed(), "%.1f"));
+        sizeRangeLabel.setText(formatRange(stats.getSize(), "%.1f"));
+        senseRangeLabel.setText(formatRange(stats.getSense(), "%.1f"));
+        energyRangeLabel.setText(formatRange(stats.getEnergy(), "%.0f"));
+        ageRangeLabel.setText(formatRange(stats.getAge(), "%.0f"));
+        foodLabel.setText("Food Available: " + snapshot.foodCount);
+
+        for (TimeSeriesChart chart : charts) {
+            chart.setHistory(snapshot.history);
+            chart.repaint();
+        }
+    }
+
+    // Order statistics come from the histogram bins, so they are accurate to one bin width
+    private static String formatRange(Histogram histogram, String number) {
+        return String.format("   min " + number + "  p10 " + number + "  p50 " + number + "  p90 " + number + "  max " + number,
+                histogram.getMin(), histogram.getPercentile(0.1), histogram.getPercentile(0.5),
+                histogram.getPercentile(0.9), histogram.getMax());
+    }
+}
+
+// Line chart of one or more TimeSeries sharing a time axis. Each pixel column folds the buckets it
+// covers into a min/max band and a mean line, so a repaint costs O(width + capacity) for any run length.
+class TimeSeriesChart extends JComponent {
+    private static final long serialVersionUID = 1L;
+    private static final Color BACKGROUND = new Color(22, 22, 30);
+    private static final Color FRAME = new Color(60, 60, 75);
+    private static final Color TEXT = new Color(170, 170, 185);
+    private static final Font LABEL_FONT = new Font("Arial", Font.PLAIN, 10);
+    private static final int HEADER = 14;
+
+    private final String title;
+    private final String[] names;
+    private final Color[] colors;
+    private final Color[] bandColors;
+    private final List<Function<SimulationHistory, TimeSeries>> selectors;
+    private SimulationHistory history;
+
+    TimeSeriesChart(String title, String[] names, Color[] colors, List<Function<SimulationHistory, TimeSeries>> selectors) {
+        this.title = title;
+        this.names = names;
+        this.colors = colors;
+        this.selectors = selectors;
+        this.bandColors = new Color[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            bandColors[i] = new Color(colors[i].getRed(), colors[i].getGreen(), colors[i].getBlue(), 70);
+        }
+        setAlignmentX(Component.LEFT_ALIGNMENT);
+        setPreferredSize(new Dimension(260, 70));
+        setMaximumSize(new Dimension(Integer.MAX_VALUE, 70));
+    }
+
+    void setHistory(SimulationHistory history) {
+        this.history = history;
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int width = getWidth();
+        int height = getHeight();
+        g.setColor(BACKGROUND);
+        g.fillRect(0, 0, width, height);
+        g.setColor(FRAME);
+        g.drawRect(0, HEADER, width - 1, height - HEADER - 1);
+        g.setFont(LABEL_FONT);
+        SimulationHistory data = history;
+        if (data == null || selectors.get(0).apply(data).size() == 0) {
+            g.setColor(TEXT);
+            g.drawString(title, 2, HEADER - 3);
+            return;
+        }
+
+        // Shared vertical range over every bucket of every series
+        double lo = Double.MAX_VALUE;
+        double hi = -Double.MAX_VALUE;
+        for (Function<SimulationHistory, TimeSeries> selector : selectors) {
+            TimeSeries series = selector.apply(data);
+            for (int b = 0; b < series.size(); b++) {
+                lo = Math.min(lo, series.getMin(b));
+                hi = Math.max(hi, series.getMax(b));
+            }
+        }
+        if (hi - lo < 1e-9) {
+            hi = lo + 1;
+        }
+
+        int plotTop = HEADER + 2;
+        int plotHeight = height - plotTop - 2;
+        int plotWidth = width - 2;
+        for (int s = 0; s < selectors.size(); s++) {
+            TimeSeries series = selectors.get(s).apply(data);
+            int n = series.size();
+            int previousY = -1;
+            for (int column = 0; column < plotWidth; column++) {
+                int b0 = (int) ((long) column * n / plotWidth);
+                int b1 = Math.max(b0 + 1, (int) ((long) (column + 1) * n / plotWidth));
+                double min = Double.MAX_VALUE;
+                double max = -Double.MAX_VALUE;
+                double meanSum = 0;
+                for (int b = b0; b < b1; b++) {
+                    min = Math.min(min, series.getMin(b));
+                    max = Math.max(max, series.getMax(b));
+                    meanSum += series.getMean(b);
+                }
+                int x = column + 1;
+                int yMin = plotTop + (int) ((hi - min) / (hi - lo) * plotHeight);
+                int yMax = plotTop + (int) ((hi - max) / (hi - lo) * plotHeight);
+                int yMean = plotTop + (int) ((hi - meanSum / (b1 - b0)) / (hi - lo) * plotHeight);
+
+                g.setColor(bandColors[s]);
+                g.drawLine(x, yMax, x, yMin);
+                g.setColor(colors[s]);
+                g.drawLine(x - 1, previousY < 0 ? yMean : previousY, x, yMean);
+                previousY = yMean;
+            }
+        }
+
+        // Header: title, latest value of each series and how many ticks the chart spans
+        int x = 2;
+        g.setColor(TEXT);
+        g.drawString(title, x, HEADER - 3);
+        x += g.getFontMetrics().stringWidth(title) + 6;
+        for (int s = 0; s < selectors.size(); s++) {
+            TimeSeries series = selectors.get(s).apply(data);
+            String label = names.length > 1
+                    ? String.format("%s %.2f", names[s], series.getLast())
+                    : String.format("%.0f", series.getLast());
+            g.setColor(colors[s]);
+            g.drawString(label, x, HEADER - 3);
+            x += g.getFontMetrics().stringWidth(label) + 6;
+        }
+        String span = selectors.get(0).apply(data).getSampleCount() + " ticks";
+        g.setColor(TEXT);
+        g.drawString(span, width - g.getFontMetrics().stringWidth(span) - 2, height - 4);
+    }
+}
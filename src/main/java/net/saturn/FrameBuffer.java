@@ -0,0 +1,101 @@
+package net.saturn;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+// Opaque RGB image that entity sprites are composited into by hand. Java2D validates every
+// drawImage call, which costs more than blending a small sprite, so the panel draws the whole
+// entity layer here and hands Swing a single image.
+class FrameBuffer {
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private int[] pixels;
+    private int width;
+    private int height;
+
+    // Reallocates only when the size changes
+    void ensureSize(int width, int height) {
+        if (image == null || this.width != width || this.height != height) {
+            this.width = width;
+            this.height = height;
+            if (graphics != null) {
+                graphics.dispose();
+            }
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            graphics = image.createGraphics();
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+    }
+
+    BufferedImage getImage() {
+        return image;
+    }
+
+    // Shared Java2D context for whatever is cheaper to draw as shapes or scaled images, such as terrain tiles
+    Graphics2D getGraphics() {
+        return graphics;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    // Source-over blend of a premultiplied sprite whose top-left corner lands at (x, y)
+    void draw(SpriteCache.Sprite sprite, int x, int y) {
+        int sx0 = Math.max(0, -x);
+        int sy0 = Math.max(0, -y);
+        int sx1 = Math.min(sprite.width, width - x);
+        int sy1 = Math.min(sprite.height, height - y);
+        int[] src = sprite.pixels;
+        int[] dst = pixels;
+
+        for (int sy = sy0; sy < sy1; sy++) {
+            int s = sy * sprite.width;
+            int d = (y + sy) * width + x;
+            // Blend the anti-aliased edges and copy the opaque middle of the row in one go
+            int opaqueStart = Math.max(sx0, Math.min(sprite.opaqueStart[sy], sx1));
+            int opaqueEnd = Math.max(opaqueStart, Math.min(sprite.opaqueEnd[sy], sx1));
+            blendSpan(src, s, dst, d, sx0, opaqueStart);
+            System.arraycopy(src, s + opaqueStart, dst, d + opaqueStart, opaqueEnd - opaqueStart);
+            blendSpan(src, s, dst, d, opaqueEnd, sx1);
+        }
+    }
+
+    private static void blendSpan(int[] src, int s, int[] dst, int d, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int argb = src[s + i];
+            int alpha = argb >>> 24;
+            if (alpha == 255) {
+                dst[d + i] = argb;
+            } else if (alpha != 0) {
+                dst[d + i] = blend(argb, dst[d + i], 255 - alpha);
+            }
+        }
+    }
+
+    // Source-over fill with a premultiplied colour, clipped to the buffer
+    void fillRect(int x, int y, int w, int h, int argb) {
+        int x0 = Math.max(0, x);
+        int y0 = Math.max(0, y);
+        int x1 = Math.min(width, x + w);
+        int y1 = Math.min(height, y + h);
+        int inverse = 255 - (argb >>> 24);
+        for (int row = y0; row < y1; row++) {
+            for (int i = row * width + x0, end = row * width + x1; i < end; i++) {
+                pixels[i] = blend(argb, pixels[i], inverse);
+            }
+        }
+    }
+
+    private static int blend(int src, int dst, int inverse) {
+        int r = ((src >> 16) & 0xFF) + ((dst >> 16) & 0xFF) * inverse / 255;
+        int g = ((src >> 8) & 0xFF) + ((dst >> 8) & 0xFF) * inverse / 255;
+        int b = (src & 0xFF) + (dst & 0xFF) * inverse / 255;
+        return (r << 16) | (g << 8) | b;
+    }
+}
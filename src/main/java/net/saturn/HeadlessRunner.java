@@ -0,0 +1,219 @@
+package net.saturn;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+// Runs a World in a tight loop without Swing; nothing here loads AWT or Swing classes.
+public class HeadlessRunner {
+    private int width = 1000;
+    private int height = 1000;
+    private int population = 500;
+    private long seed = System.nanoTime();
+    private long ticks = 100_000;
+    private long statsInterval = 10_000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private String outputPath;
+    private boolean chunkedTerrain;
+    private String restorePath;
+    private String savePath;
+    private String telemetryPath;
+
+    public static void main(String[] args) {
+        HeadlessRunner runner = new HeadlessRunner();
+        try {
+            runner.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage(System.err);
+            System.exit(2);
+        }
+
+        try {
+            runner.run();
+        } catch (IOException e) {
+            System.err.println("I/O error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--help") || arg.equals("-h")) {
+                printUsage(System.out);
+                System.exit(0);
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            try {
+                switch (arg) {
+                    case "--size":
+                        width = Integer.parseInt(value);
+                        height = width;
+                        break;
+                    case "--width":
+                        width = Integer.parseInt(value);
+                        break;
+                    case "--height":
+                        height = Integer.parseInt(value);
+                        break;
+                    case "--population":
+                        population = Integer.parseInt(value);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--ticks":
+                        ticks = Long.parseLong(value);
+                        break;
+                    case "--stats-interval":
+                        statsInterval = Long.parseLong(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--out":
+                        outputPath = value;
+                        break;
+                    case "--terrain":
+                        if (!value.equals("eager") && !value.equals("chunked")) {
+                            throw new IllegalArgumentException("Terrain mode must be eager or chunked: " + value);
+                        }
+                        chunkedTerrain = value.equals("chunked");
+                        break;
+                    case "--restore":
+                        restorePath = value;
+                        break;
+                    case "--save":
+                        savePath = value;
+                        break;
+                    case "--telemetry":
+                        telemetryPath = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number for " + arg + ": " + value);
+            }
+        }
+
+        if (width <= 0 || height <= 0 || population < 0 || ticks < 0 || statsInterval <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("Sizes, counts and intervals must be positive");
+        }
+    }
+
+    private static void printUsage(PrintStream out) {
+        out.println("Usage: HeadlessRunner [options]");
+        out.println("  --size N             square world size (sets width and height)");
+        out.println("  --width N            world width (default 1000)");
+        out.println("  --height N           world height (default 1000)");
+        out.println("  --population N       initial population (default 500)");
+        out.println("  --seed N             world seed (default: clock)");
+        out.println("  --ticks N            ticks to run (default 100000)");
+        out.println("  --stats-interval N   ticks between progress lines (default 10000)");
+        out.println("  --threads N          tick worker threads (default: available cores)");
+        out.println("  --out FILE           write per-generation rows to FILE instead of stdout");
+        out.println("  --terrain MODE       eager (default) or chunked for very large worlds");
+        out.println("  --restore FILE       continue from a checkpoint; size, population, seed and terrain are ignored");
+        out.println("  --save FILE          write a checkpoint after the last tick");
+        out.println("  --telemetry FILE     log per-tick and per-generation metrics (read with TelemetryReader)");
+    }
+
+    private void run() throws IOException {
+        World world;
+        if (restorePath != null) {
+            long start = System.nanoTime();
+            world = World.load(Paths.get(restorePath));
+            System.out.printf(Locale.ROOT, "# restored %s generation=%d population=%d in %.3f s%n",
+                    restorePath, world.getGeneration(), world.getCreatures().size(),
+                    (System.nanoTime() - start) / 1e9);
+        } else {
+            world = new World(width, height, population, seed, chunkedTerrain);
+        }
+        world.setParallelism(threads);
+        TelemetryWriter telemetry = telemetryPath == null ? null : new TelemetryWriter(Paths.get(telemetryPath));
+        world.setTelemetry(telemetry);
+
+        PrintWriter rows = openOutput();
+        try {
+            System.out.printf(Locale.ROOT, "# seed=%d size=%dx%d population=%d threads=%d terrain=%s%n",
+                    world.getSeed(), world.getWidth(), world.getHeight(), world.getCreatures().size(),
+                    threads, world.getTerrain().isChunked() ? "chunked" : "eager");
+            rows.println("generation,tick,population,enemies,food,water,avg_speed,avg_size,avg_sense");
+
+            int lastGeneration = world.getGeneration();
+            long intervalStart = System.nanoTime();
+            long runStart = intervalStart;
+
+            for (long tick = 1; tick <= ticks; tick++) {
+                world.update();
+
+                // One row per completed generation, using the averages at the moment it rolls over
+                if (world.getGeneration() != lastGeneration) {
+                    lastGeneration = world.getGeneration();
+                    writeRow(rows, world, tick);
+                }
+
+                if (tick % statsInterval == 0) {
+                    long now = System.nanoTime();
+                    double ticksPerSecond = statsInterval / ((now - intervalStart) / 1e9);
+                    System.out.printf(Locale.ROOT, "# tick=%d generation=%d population=%d ticks/s=%.1f%n",
+                            tick, world.getGeneration(), world.getCreatures().size(), ticksPerSecond);
+                    intervalStart = now;
+                }
+            }
+
+            double elapsed = (System.nanoTime() - runStart) / 1e9;
+            System.out.printf(Locale.ROOT, "# done ticks=%d seconds=%.3f ticks/s=%.1f%n",
+                    ticks, elapsed, ticks / Math.max(elapsed, 1e-9));
+            if (TickProfiler.ENABLED) {
+                for (String line : world.getProfiler().getReport().split("\n")) {
+                    System.out.println("# " + line);
+                }
+            }
+
+            if (savePath != null) {
+                long start = System.nanoTime();
+                world.save(Paths.get(savePath));
+                System.out.printf(Locale.ROOT, "# saved %s population=%d in %.3f s%n",
+                        savePath, world.getCreatures().size(), (System.nanoTime() - start) / 1e9);
+            }
+        } finally {
+            // Never close System.out on the caller's behalf
+            if (outputPath == null) {
+                rows.flush();
+            } else {
+                rows.close();
+            }
+            world.shutdown();
+            if (telemetry != null) {
+                telemetry.close();
+            }
+        }
+    }
+
+    private PrintWriter openOutput() throws IOException {
+        Writer writer = outputPath == null
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : new OutputStreamWriter(new FileOutputStream(outputPath), StandardCharsets.UTF_8);
+        return new PrintWriter(writer, outputPath == null);
+    }
+
+    private static void writeRow(PrintWriter rows, World world, long tick) {
+        rows.printf(Locale.ROOT, "%d,%d,%d,%d,%d,%d,%.4f,%.4f,%.4f%n",
+                world.getGeneration() - 1, tick,
+                world.getCreatures().size(), world.getEnemies().size(),
+                world.getFoodStore().size(), world.getWaterStore().size(),
+                world.getAverageSpeed(), world.getAverageSize(), world.getAverageSense());
+    }
+}
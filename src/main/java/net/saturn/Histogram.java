@@ -0,0 +1,116 @@
+package net.saturn;
+
+import java.util.Arrays;
+
+// Fixed-bin histogram with a running sum, so adding or removing a value and reading the mean are
+// O(1), and min, max and percentiles are O(bins). Values outside [min, max] count in the end bins,
+// so order statistics are accurate to one bin width and clamped to the range.
+public class Histogram {
+    private final double min;
+    private final double max;
+    private final double binWidth;
+    private final int[] bins;
+    private int count;
+    private double sum;
+
+    public Histogram(double min, double max, int binCount) {
+        if (!(max > min) || binCount < 1) {
+            throw new IllegalArgumentException("Histogram needs max > min and at least one bin");
+        }
+        this.min = min;
+        this.max = max;
+        this.binWidth = (max - min) / binCount;
+        this.bins = new int[binCount];
+    }
+
+    void add(double value) {
+        bins[binOf(value)]++;
+        count++;
+        sum += value;
+    }
+
+    void remove(double value) {
+        bins[binOf(value)]--;
+        count--;
+        sum -= value;
+    }
+
+    void clear() {
+        Arrays.fill(bins, 0);
+        count = 0;
+        sum = 0;
+    }
+
+    // Both histograms must have the same range and bin count
+    void copyFrom(Histogram other) {
+        System.arraycopy(other.bins, 0, bins, 0, bins.length);
+        count = other.count;
+        sum = other.sum;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    // Lower edge of the lowest occupied bin
+    public double getMin() {
+        for (int i = 0; i < bins.length; i++) {
+            if (bins[i] > 0) {
+                return min + i * binWidth;
+            }
+        }
+        return 0;
+    }
+
+    // Upper edge of the highest occupied bin
+    public double getMax() {
+        for (int i = bins.length - 1; i >= 0; i--) {
+            if (bins[i] > 0) {
+                return min + (i + 1) * binWidth;
+            }
+        }
+        return 0;
+    }
+
+    // Value below which the given fraction of the population lies, interpolated inside its bin
+    public double getPercentile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        double target = Math.max(0, Math.min(1, fraction)) * count;
+        int cumulative = 0;
+        for (int i = 0; i < bins.length; i++) {
+            int next = cumulative + bins[i];
+            if (bins[i] > 0 && next >= target) {
+                return min + (i + (target - cumulative) / bins[i]) * binWidth;
+            }
+            cumulative = next;
+        }
+        return max;
+    }
+
+    public int getBinCount() {
+        return bins.length;
+    }
+
+    public int getBin(int i) {
+        return bins[i];
+    }
+
+    public double getRangeMin() {
+        return min;
+    }
+
+    public double getRangeMax() {
+        return max;
+    }
+
+    private int binOf(double value) {
+        int bin = (int) ((value - min) / binWidth);
+        return Math.max(0, Math.min(bins.length - 1, bin));
+    }
+}
@@ -0,0 +1,81 @@
+package net.saturn;
+
+import java.util.Arrays;
+
+// HDR-style log-linear histogram of nanosecond durations. Each power of two is split into 32
+// buckets, so any recorded value is known to within about 3%, from 1 ns up to about 18 minutes,
+// in a fixed array of just over a thousand counters. Recording is O(1) with no allocation.
+final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final long MAX_VALUE = (1L << 40) - 1;
+
+    private final long[] counts = new long[indexOf(MAX_VALUE) + 1];
+    private long count;
+    private long sum;
+    private long max;
+
+    void record(long nanos) {
+        long value = Math.max(0, Math.min(MAX_VALUE, nanos));
+        counts[indexOf(value)]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    long getMax() {
+        return max;
+    }
+
+    // Midpoint of the bucket holding the given fraction of recorded values
+    double getPercentile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(Math.max(0, Math.min(1, fraction)) * count);
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= Math.max(1, target)) {
+                return Math.min(max, lowerBound(i) + (bucketWidth(i) - 1) / 2.0);
+            }
+        }
+        return max;
+    }
+
+    // Values below 2 * SUB_BUCKETS get a bucket each; above that, the top SUB_BITS + 1 bits pick it
+    private static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long lowerBound(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    private static long bucketWidth(int index) {
+        return index < 2 * SUB_BUCKETS ? 1 : 1L << (index / SUB_BUCKETS - 1);
+    }
+}
@@ -0,0 +1,662 @@
+package net.saturn;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Hierarchical pathfinding over the terrain. The map is cut into CLUSTER x CLUSTER clusters and
+// each cluster's walkable cells into 4-connected regions. Wherever a region touches a region of a
+// neighbouring cluster, each maximal run of touching border cells becomes one entrance: a pair of
+// nodes, one on either side. Searches run over these nodes only, so routing around a lake expands
+// a few hundred nodes instead of every cell on the way.
+//
+// Costs are travel time: a step costs its length over the biome speed modifier, averaged across
+// the two cells. The first time a search needs a region, one Dijkstra inside its cluster from each
+// of its entrances costs every crossing exactly; those few costs are kept, since terrain never
+// changes. Agents walk around water inside a region along a field of steps leading to the entrance
+// they head for. Fields are far larger, so only a bounded set of them is kept and the rest are
+// flooded again when next needed.
+//
+// Routes are cached by (from region, to region) and hold only the entrance to head for next, so
+// every agent in a region walking towards the same region shares one search. A route depends on
+// nothing but the two regions, which keeps movement independent of thread count and query order.
+// Eager terrain only; chunked worlds are too large to abstract up front and steer straight.
+final class Pathfinder {
+    static final int CLUSTER = 32;
+    private static final int NO_ROUTE = -1;
+    private static final int UNKNOWN = -2;
+    // Waypoints lie up to this many steps along a region's step field, for smoother steering
+    private static final int LOOKAHEAD = 6;
+    // Step directions in a field, as indexes into STEP_X and STEP_Y; AT_ENTRANCE means cross over
+    private static final int[] STEP_X = {1, -1, 0, 0, 1, -1, 1, -1};
+    private static final int[] STEP_Y = {0, 0, 1, -1, 1, -1, -1, 1};
+    private static final byte AT_ENTRANCE = 8;
+    // Routes costing more than this many times the straight-line estimate count as unreachable
+    private static final float DETOUR_LIMIT = 3;
+    private static final int CACHE_SEGMENTS = 64;
+    private static final int CACHE_SEGMENT_SLOTS = 4096;
+    // Step fields kept at once, CLUSTER * CLUSTER bytes each
+    private static final int MAX_STEP_FIELDS = 4096;
+
+    private final Terrain terrain;
+    private final int width;
+    private final int height;
+    private final int clustersX;
+    // Cheapest cost per unit distance on any walkable biome, which keeps the heuristic admissible
+    private final float minCellCost;
+
+    // Region of each cell, numbered within its cluster; -1 for water
+    private final short[] localRegion;
+    private final int[] regionBase;
+    private final int[] anchorCell;
+
+    // Entrance nodes grouped by region; a node's partner is its other half across the border
+    private final int[] regionNodeStart;
+    private final int[] nodeCell;
+    private final int[] nodeRegion;
+    private final int[] nodePartner;
+
+    private final AtomicReferenceArray<float[]> regionCosts;
+    private final AtomicReferenceArray<byte[]> stepFields;
+    // Nodes whose step field is kept, swept by a clock hand; guarded by the ring itself
+    private final int[] fieldRing = new int[MAX_STEP_FIELDS];
+    private int fieldRingSize;
+    private int fieldHand;
+    // Plain on purpose: a racing read only blurs the eviction order, never correctness
+    private final boolean[] fieldReferenced;
+    private final RouteCache[] routes = new RouteCache[CACHE_SEGMENTS];
+    private final ThreadLocal<Search> searches;
+
+    Pathfinder(Terrain terrain) {
+        this.terrain = terrain;
+        this.width = terrain.getWidth();
+        this.height = terrain.getHeight();
+        this.clustersX = (width + CLUSTER - 1) / CLUSTER;
+        int clustersY = (height + CLUSTER - 1) / CLUSTER;
+        float cheapest = Float.MAX_VALUE;
+        for (int b = 0; b < Biome.SPEED_MODIFIER.length; b++) {
+            if (Biome.WALKABLE[b]) {
+                cheapest = Math.min(cheapest, cellCost(b));
+            }
+        }
+        this.minCellCost = cheapest;
+
+        localRegion = new short[width * height];
+        regionBase = new int[clustersX * clustersY + 1];
+        IntList anchors = new IntList();
+        int[] queue = new int[CLUSTER * CLUSTER];
+        for (int c = 0; c < clustersX * clustersY; c++) {
+            regionBase[c] = anchors.size;
+            labelCluster(c, queue, anchors);
+        }
+        regionBase[clustersX * clustersY] = anchors.size;
+        anchorCell = anchors.toArray();
+        int regions = anchorCell.length;
+
+        // Entrances on the right and bottom border of every cluster, two nodes each
+        IntList cells = new IntList();
+        for (int cy = 0; cy < clustersY; cy++) {
+            for (int cx = 0; cx < clustersX; cx++) {
+                int x0 = cx * CLUSTER;
+                int y0 = cy * CLUSTER;
+                if (x0 + CLUSTER < width) {
+                    addEntrances(cells, x0 + CLUSTER - 1, y0, 1, 0, Math.min(CLUSTER, height - y0));
+                }
+                if (y0 + CLUSTER < height) {
+                    addEntrances(cells, x0, y0 + CLUSTER - 1, 0, 1, Math.min(CLUSTER, width - x0));
+                }
+            }
+        }
+
+        // Counting sort of nodes by region; entrance e owns unsorted nodes 2e and 2e + 1
+        int nodes = cells.size;
+        int[] unsortedRegion = new int[nodes];
+        regionNodeStart = new int[regions + 1];
+        for (int n = 0; n < nodes; n++) {
+            unsortedRegion[n] = regionAt(cells.values[n] % width, cells.values[n] / width);
+            regionNodeStart[unsortedRegion[n] + 1]++;
+        }
+        for (int r = 0; r < regions; r++) {
+            regionNodeStart[r + 1] += regionNodeStart[r];
+        }
+        int[] next = Arrays.copyOf(regionNodeStart, regions);
+        int[] sortedOf = new int[nodes];
+        nodeCell = new int[nodes];
+        nodeRegion = new int[nodes];
+        for (int n = 0; n < nodes; n++) {
+            int s = next[unsortedRegion[n]]++;
+            sortedOf[n] = s;
+            nodeCell[s] = cells.values[n];
+            nodeRegion[s] = unsortedRegion[n];
+        }
+        nodePartner = new int[nodes];
+        for (int n = 0; n < nodes; n++) {
+            nodePartner[sortedOf[n]] = sortedOf[n ^ 1];
+        }
+
+        regionCosts = new AtomicReferenceArray<>(regions);
+        stepFields = new AtomicReferenceArray<>(nodes);
+        fieldReferenced = new boolean[nodes];
+        for (int i = 0; i < routes.length; i++) {
+            routes[i] = new RouteCache();
+        }
+        searches = ThreadLocal.withInitial(() -> new Search(nodes));
+    }
+
+    static boolean supports(Terrain terrain) {
+        return !terrain.isChunked();
+    }
+
+    // Where an agent at (x, y) should steer to reach (targetX, targetY), packed as x << 32 | y: the
+    // target itself when both are in one region, the farthest point in plain sight a few steps
+    // along the way to the next entrance when they are not, or -1 when no route is cheap enough.
+    // Agents or targets off walkable ground steer straight.
+    long waypoint(int x, int y, int targetX, int targetY) {
+        int from = regionAt(x, y);
+        int to = regionAt(targetX, targetY);
+        if (from < 0 || to < 0 || from == to) {
+            return ((long) targetX << 32) | targetY;
+        }
+        int exit = route(from, to);
+        if (exit == NO_ROUTE) {
+            return -1;
+        }
+
+        byte[] steps = stepField(exit, searches.get());
+        int x0 = x / CLUSTER * CLUSTER;
+        int y0 = y / CLUSTER * CLUSTER;
+        long seen = -1;
+        int px = x;
+        int py = y;
+        for (int k = 0; k < LOOKAHEAD; k++) {
+            int step = steps[(py - y0) * CLUSTER + px - x0];
+            long point;
+            if (step == AT_ENTRANCE) {
+                int cell = nodeCell[nodePartner[exit]];
+                point = ((long) (cell % width) << 32) | (cell / width);
+            } else {
+                px += STEP_X[step];
+                py += STEP_Y[step];
+                point = ((long) px << 32) | py;
+            }
+            // The first step is always taken; later ones only while nothing blocks the straight line
+            if (k > 0 && terrain.walkableStep(x, y, (int) (point >>> 32), (int) point) != point) {
+                break;
+            }
+            seen = point;
+            if (step == AT_ENTRANCE) {
+                break;
+            }
+        }
+        return seen;
+    }
+
+    int regionAt(int x, int y) {
+        int local = localRegion[y * width + x];
+        return local < 0 ? -1 : regionBase[(y / CLUSTER) * clustersX + x / CLUSTER] + local;
+    }
+
+    int getRegionCount() {
+        return anchorCell.length;
+    }
+
+    int getNodeCount() {
+        return nodeCell.length;
+    }
+
+    private static float cellCost(int biome) {
+        return (float) (1 / Biome.SPEED_MODIFIER[biome]);
+    }
+
+    // Flood fills each 4-connected walkable region of cluster c and picks as its anchor the region
+    // cell nearest the region's centroid
+    private void labelCluster(int c, int[] queue, IntList anchors) {
+        int x0 = (c % clustersX) * CLUSTER;
+        int y0 = (c / clustersX) * CLUSTER;
+        int x1 = Math.min(x0 + CLUSTER, width);
+        int y1 = Math.min(y0 + CLUSTER, height);
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                localRegion[y * width + x] = terrain.isWalkable(x, y) ? Short.MAX_VALUE : -1;
+            }
+        }
+        short label = 0;
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                if (localRegion[y * width + x] != Short.MAX_VALUE) {
+                    continue;
+                }
+                int head = 0;
+                int tail = 0;
+                long sumX = 0;
+                long sumY = 0;
+                localRegion[y * width + x] = label;
+                queue[tail++] = y * width + x;
+                while (head < tail) {
+                    int cell = queue[head++];
+                    int cx = cell % width;
+                    int cy = cell / width;
+                    sumX += cx;
+                    sumY += cy;
+                    for (int k = 0; k < 4; k++) {
+                        int nx = cx + (k == 0 ? 1 : k == 1 ? -1 : 0);
+                        int ny = cy + (k == 2 ? 1 : k == 3 ? -1 : 0);
+                        if (nx >= x0 && nx < x1 && ny >= y0 && ny < y1
+                                && localRegion[ny * width + nx] == Short.MAX_VALUE) {
+                            localRegion[ny * width + nx] = label;
+                            queue[tail++] = ny * width + nx;
+                        }
+                    }
+                }
+                long bestDist = Long.MAX_VALUE;
+                int anchor = queue[0];
+                for (int k = 0; k < tail; k++) {
+                    long dx = (queue[k] % width) * (long) tail - sumX;
+                    long dy = (queue[k] / width) * (long) tail - sumY;
+                    if (dx * dx + dy * dy < bestDist) {
+                        bestDist = dx * dx + dy * dy;
+                        anchor = queue[k];
+                    }
+                }
+                anchors.add(anchor);
+                label++;
+            }
+        }
+    }
+
+    // Walks length cells from (x, y) along a cluster border, pairing each cell with its
+    // neighbour across the border at (+dx, +dy), and adds the middle of each walkable run
+    private void addEntrances(IntList cells, int x, int y, int dx, int dy, int length) {
+        int runStart = -1;
+        for (int k = 0; k <= length; k++) {
+            int ax = x + k * dy;
+            int ay = y + k * dx;
+            boolean open = k < length && terrain.isWalkable(ax, ay) && terrain.isWalkable(ax + dx, ay + dy);
+            if (open && runStart < 0) {
+                runStart = k;
+            } else if (!open && runStart >= 0) {
+                int mid = (runStart + k - 1) / 2;
+                int mx = x + mid * dy;
+                int my = y + mid * dx;
+                cells.add(my * width + mx);
+                cells.add((my + dy) * width + mx + dx);
+                runStart = -1;
+            }
+        }
+    }
+
+    // First entrance out of from on the cheapest route to any entrance into to, or NO_ROUTE
+    private int route(int from, int to) {
+        long key = ((long) from << 32) | to;
+        long hash = Rng.mix64(key);
+        RouteCache cache = routes[(int) (hash >>> 58)];
+        int exit = cache.get(key, (int) hash);
+        if (exit == UNKNOWN) {
+            exit = search(from, to);
+            cache.put(key, (int) hash, exit);
+        }
+        return exit;
+    }
+
+    // A* over entrance nodes, starting from every node of from at its cost from the anchor. The
+    // heuristic is the straight-line distance to to's cluster at the cheapest cost per unit.
+    private int search(int from, int to) {
+        Search s = searches.get();
+        s.begin();
+        int target = anchorCell[to];
+        int gx0 = (target % width) / CLUSTER * CLUSTER;
+        int gy0 = (target / width) / CLUSTER * CLUSTER;
+        int gx1 = Math.min(gx0 + CLUSTER, width) - 1;
+        int gy1 = Math.min(gy0 + CLUSTER, height) - 1;
+
+        float[] costs = costs(from, s);
+        int first = regionNodeStart[from];
+        int k = regionNodeStart[from + 1] - first;
+        int anchor = anchorCell[from];
+        float bound = DETOUR_LIMIT * heuristic(anchor, gx0, gy0, gx1, gy1) + 2 * CLUSTER * minCellCost;
+        for (int i = 0; i < k; i++) {
+            s.open(first + i, costs[k * k + i], heuristic(nodeCell[first + i], gx0, gy0, gx1, gy1), first + i);
+        }
+
+        while (s.nodeHeap.size > 0) {
+            long top = s.nodeHeap.pop();
+            int node = (int) top;
+            float f = Float.intBitsToFloat((int) (top >>> 32));
+            if (s.closed[node] == s.epoch) {
+                continue;
+            }
+            if (f > bound) {
+                return NO_ROUTE;
+            }
+            if (nodeRegion[node] == to) {
+                return s.origin[node];
+            }
+            s.closed[node] = s.epoch;
+            float g = s.g[node];
+            int origin = s.origin[node];
+
+            // Cross the border, then head from the far side to every other entrance of that region
+            int partner = nodePartner[node];
+            float crossed = g + stepCost(nodeCell[node], nodeCell[partner], 1);
+            int region = nodeRegion[partner];
+            if (region == to) {
+                s.open(partner, crossed, 0, origin);
+                continue;
+            }
+            float[] across = costs(region, s);
+            int start = regionNodeStart[region];
+            int count = regionNodeStart[region + 1] - start;
+            int row = (partner - start) * count;
+            for (int j = 0; j < count; j++) {
+                int other = start + j;
+                if (other != partner && s.closed[other] != s.epoch && across[row + j] < Float.MAX_VALUE) {
+                    s.open(other, crossed + across[row + j], heuristic(nodeCell[other], gx0, gy0, gx1, gy1), origin);
+                }
+            }
+        }
+        return NO_ROUTE;
+    }
+
+    private float heuristic(int cell, int x0, int y0, int x1, int y1) {
+        int x = cell % width;
+        int y = cell / width;
+        int dx = Math.max(0, Math.max(x0 - x, x - x1));
+        int dy = Math.max(0, Math.max(y0 - y, y - y1));
+        return (float) Math.sqrt((double) dx * dx + (double) dy * dy) * minCellCost;
+    }
+
+    private float stepCost(int a, int b, double length) {
+        int biomeA = terrain.getBiomeIdAt(a % width, a / width);
+        int biomeB = terrain.getBiomeIdAt(b % width, b / width);
+        return (float) (length * (cellCost(biomeA) + cellCost(biomeB)) / 2);
+    }
+
+    // Entrance-to-entrance costs of a region row by row, then each entrance's cost from the anchor.
+    // Computed on first use; racing threads compute the same result and one of them is kept.
+    private float[] costs(int region, Search s) {
+        float[] costs = regionCosts.get(region);
+        if (costs == null) {
+            costs = computeCosts(region, s);
+            if (!regionCosts.compareAndSet(region, null, costs)) {
+                costs = regionCosts.get(region);
+            }
+        }
+        return costs;
+    }
+
+    private float[] computeCosts(int region, Search s) {
+        int first = regionNodeStart[region];
+        int k = regionNodeStart[region + 1] - first;
+        float[] costs = new float[k * k + k];
+        int anchor = anchorCell[region];
+        int x0 = (anchor % width) / CLUSTER * CLUSTER;
+        int y0 = (anchor / width) / CLUSTER * CLUSTER;
+        loadCellCosts(region, s);
+        float[] dist = s.cellDist;
+        for (int i = 0; i < k; i++) {
+            // The flood costs the same with or without steps, so keep the field while it is at hand
+            int node = first + i;
+            byte[] steps = stepFields.get(node) == null ? new byte[CLUSTER * CLUSTER] : null;
+            flood(nodeCell[node], s, steps);
+            if (steps != null && stepFields.compareAndSet(node, null, steps)) {
+                admitField(node);
+            }
+            for (int j = 0; j < k; j++) {
+                int target = nodeCell[first + j];
+                costs[i * k + j] = dist[(target / width - y0) * CLUSTER + target % width - x0];
+            }
+            costs[k * k + i] = dist[(anchor / width - y0) * CLUSTER + anchor % width - x0];
+        }
+        return costs;
+    }
+
+    // CLUSTER x CLUSTER step directions leading to the entrance node, kept while the clock hand
+    // finds it in use. A field depends only on the terrain, so eviction never changes a route.
+    private byte[] stepField(int node, Search s) {
+        byte[] steps = stepFields.get(node);
+        if (steps == null) {
+            steps = new byte[CLUSTER * CLUSTER];
+            loadCellCosts(nodeRegion[node], s);
+            flood(nodeCell[node], s, steps);
+            if (stepFields.compareAndSet(node, null, steps)) {
+                admitField(node);
+            } else {
+                steps = stepFields.get(node);
+            }
+        }
+        fieldReferenced[node] = true;
+        return steps;
+    }
+
+    // Gives a newly kept field a ring slot, dropping the first field the hand finds unused since its
+    // last pass. Each pass clears at most one flag per slot, so this is O(1) amortised.
+    private void admitField(int node) {
+        synchronized (fieldRing) {
+            if (fieldRingSize < MAX_STEP_FIELDS) {
+                fieldRing[fieldRingSize++] = node;
+                return;
+            }
+            while (fieldReferenced[fieldRing[fieldHand]]) {
+                fieldReferenced[fieldRing[fieldHand]] = false;
+                fieldHand = fieldHand + 1 == MAX_STEP_FIELDS ? 0 : fieldHand + 1;
+            }
+            stepFields.set(fieldRing[fieldHand], null);
+            fieldRing[fieldHand] = node;
+            fieldHand = fieldHand + 1 == MAX_STEP_FIELDS ? 0 : fieldHand + 1;
+        }
+    }
+
+    // Loads the cost of every cell of the region's cluster into s.cellCosts, NaN off the region
+    private void loadCellCosts(int region, Search s) {
+        int anchor = anchorCell[region];
+        int x0 = (anchor % width) / CLUSTER * CLUSTER;
+        int y0 = (anchor / width) / CLUSTER * CLUSTER;
+        int w = Math.min(x0 + CLUSTER, width) - x0;
+        int h = Math.min(y0 + CLUSTER, height) - y0;
+        short label = localRegion[anchor];
+        float[] cellCosts = s.cellCosts;
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int cell = (y0 + y) * width + x0 + x;
+                cellCosts[y * CLUSTER + x] = localRegion[cell] == label
+                        ? cellCost(terrain.getBiomeIdAt(x0 + x, y0 + y))
+                        : Float.NaN;
+            }
+        }
+    }
+
+    // Dijkstra inside the cluster from one entrance over the loaded cell costs, moving to the eight
+    // neighbours but never cutting a corner past water. Leaves every cell's cost in s.cellDist and,
+    // if steps is given, each cell's step back along the shortest path tree towards the entrance.
+    private void flood(int source, Search s, byte[] steps) {
+        int x0 = (source % width) / CLUSTER * CLUSTER;
+        int y0 = (source / width) / CLUSTER * CLUSTER;
+        int w = Math.min(x0 + CLUSTER, width) - x0;
+        int h = Math.min(y0 + CLUSTER, height) - y0;
+        float[] cellCosts = s.cellCosts;
+        float[] dist = s.cellDist;
+        Arrays.fill(dist, Float.MAX_VALUE);
+        int local = (source / width - y0) * CLUSTER + source % width - x0;
+        dist[local] = 0;
+        if (steps != null) {
+            steps[local] = AT_ENTRANCE;
+        }
+        Heap heap = s.cellHeap;
+        heap.size = 0;
+        heap.push(local, 0);
+        while (heap.size > 0) {
+            long top = heap.pop();
+            int cell = (int) top;
+            float d = Float.intBitsToFloat((int) (top >>> 32));
+            if (d > dist[cell]) {
+                continue;
+            }
+            int cx = cell % CLUSTER;
+            int cy = cell / CLUSTER;
+            for (int step = 0; step < STEP_X.length; step++) {
+                int nx = cx + STEP_X[step];
+                int ny = cy + STEP_Y[step];
+                if (nx < 0 || nx >= w || ny < 0 || ny >= h) {
+                    continue;
+                }
+                int next = ny * CLUSTER + nx;
+                if (Float.isNaN(cellCosts[next])) {
+                    continue;
+                }
+                boolean diagonal = step >= 4;
+                if (diagonal && (Float.isNaN(cellCosts[cy * CLUSTER + nx]) || Float.isNaN(cellCosts[ny * CLUSTER + cx]))) {
+                    continue;
+                }
+                float nd = d + (float) ((diagonal ? Math.sqrt(2) : 1) * (cellCosts[cell] + cellCosts[next]) / 2);
+                if (nd < dist[next]) {
+                    dist[next] = nd;
+                    if (steps != null) {
+                        // Steps are listed in opposite pairs, so step ^ 1 leads back to cell
+                        steps[next] = (byte) (step ^ 1);
+                    }
+                    heap.push(next, nd);
+                }
+            }
+        }
+    }
+
+    // Per-thread scratch for searches; node marks are reset by bumping the epoch
+    private static final class Search {
+        final float[] g;
+        final int[] origin;
+        final int[] seen;
+        final int[] closed;
+        final float[] cellCosts = new float[CLUSTER * CLUSTER];
+        final float[] cellDist = new float[CLUSTER * CLUSTER];
+        final Heap nodeHeap = new Heap();
+        final Heap cellHeap = new Heap();
+        int epoch;
+
+        Search(int nodes) {
+            g = new float[nodes];
+            origin = new int[nodes];
+            seen = new int[nodes];
+            closed = new int[nodes];
+        }
+
+        void begin() {
+            epoch++;
+            nodeHeap.size = 0;
+        }
+
+        void open(int node, float cost, float estimate, int from) {
+            if (seen[node] == epoch && cost >= g[node]) {
+                return;
+            }
+            seen[node] = epoch;
+            g[node] = cost;
+            origin[node] = from;
+            nodeHeap.push(node, cost + estimate);
+        }
+    }
+
+    // Binary min-heap whose entries pack a non-negative priority's float bits above an id, so
+    // entries compare as longs and ties go to the lower id
+    private static final class Heap {
+        long[] heap = new long[256];
+        int size;
+
+        void push(int id, float priority) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            long entry = ((long) Float.floatToIntBits(priority) << 32) | id;
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= entry) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = entry;
+        }
+
+        long pop() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (heap[child] >= last) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            if (size > 0) {
+                heap[i] = last;
+            }
+            return top;
+        }
+    }
+
+    // One lock-striped segment of the route cache: open addressing over (from, to) keys. A full
+    // segment is simply cleared, since every route can be searched again to the same answer.
+    private static final class RouteCache {
+        private static final long EMPTY = -1;
+
+        private final long[] keys = new long[CACHE_SEGMENT_SLOTS];
+        private final int[] exits = new int[CACHE_SEGMENT_SLOTS];
+        private int size;
+
+        RouteCache() {
+            Arrays.fill(keys, EMPTY);
+        }
+
+        synchronized int get(long key, int hash) {
+            for (int i = hash & (CACHE_SEGMENT_SLOTS - 1); ; i = (i + 1) & (CACHE_SEGMENT_SLOTS - 1)) {
+                if (keys[i] == key) {
+                    return exits[i];
+                }
+                if (keys[i] == EMPTY) {
+                    return UNKNOWN;
+                }
+            }
+        }
+
+        synchronized void put(long key, int hash, int exit) {
+            if (size >= CACHE_SEGMENT_SLOTS * 3 / 4) {
+                Arrays.fill(keys, EMPTY);
+                size = 0;
+            }
+            int i = hash & (CACHE_SEGMENT_SLOTS - 1);
+            while (keys[i] != EMPTY) {
+                if (keys[i] == key) {
+                    return;
+                }
+                i = (i + 1) & (CACHE_SEGMENT_SLOTS - 1);
+            }
+            keys[i] = key;
+            exits[i] = exit;
+            size++;
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[64];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -2,10 +2,39 @@ package net.saturn;
 
 import java.util.Random;
 
+import static net.saturn.PerlinNoiseVector.AA_C;
+import static net.saturn.PerlinNoiseVector.AA_X;
+import static net.saturn.PerlinNoiseVector.AB_C;
+import static net.saturn.PerlinNoiseVector.AB_X;
+import static net.saturn.PerlinNoiseVector.BA_C;
+import static net.saturn.PerlinNoiseVector.BA_X;
+import static net.saturn.PerlinNoiseVector.BB_C;
+import static net.saturn.PerlinNoiseVector.BB_X;
+import static net.saturn.PerlinNoiseVector.CELL_TERMS;
+
 public class PerlinNoise {
     private final int[] permutation;
     private static final int[] P_DEFAULT = new int[512];
 
+    // Per-hash gradient coefficients used by the row samplers
+    private static final double[] GRAD_X = new double[16];
+    private static final double[] GRAD_Y = new double[16];
+    // Per-cell terms are rewritten for every lattice cell, so each thread reuses one buffer
+    private static final ThreadLocal<double[]> CELL_SCRATCH = ThreadLocal.withInitial(() -> new double[CELL_TERMS]);
+
+    static {
+        for (int h = 0; h < 16; h++) {
+            GRAD_X[h] = grad(h, 1, 0);
+            GRAD_Y[h] = grad(h, 0, 1);
+        }
+    }
+
+    // The vector path is only linked when the incubator module was added at launch
+    // (--add-modules jdk.incubator.vector); otherwise the scalar row loop is used.
+    private static final boolean VECTORIZED = !Boolean.getBoolean("net.saturn.noise.scalar")
+            && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && detectVectorSupport();
+
     public PerlinNoise(long seed) {
         permutation = new int[512];
         Random random = new Random(seed);
@@ -50,15 +79,126 @@ public class PerlinNoise {
         return (lerp(x1, x2, v) + 1) / 2;
     }
 
-    private double fade(double t) {
+    private static boolean detectVectorSupport() {
+        try {
+            return PerlinNoiseVector.isUsable();
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    // Samples noise((startX + i) * frequency, y * frequency) for i in [0, count) into out.
+    // Coordinates are formed exactly as a per-sample caller would, so results match noise().
+    public void noiseRow(int startX, int y, double frequency, double[] out, int count) {
+        if (!(frequency > 0)) {
+            for (int i = 0; i < count; i++) {
+                out[i] = noise((startX + i) * frequency, y * frequency);
+            }
+            return;
+        }
+
+        double sampleY = y * frequency;
+        double floorY = Math.floor(sampleY);
+        int yi = (int) floorY & 255;
+        double yf = sampleY - floorY;
+        double v = fade(yf);
+        double[] cell = CELL_SCRATCH.get();
+
+        // The four corner hashes only change once per lattice cell, so hash per cell, not per sample
+        int i = 0;
+        while (i < count) {
+            double floorX = Math.floor((startX + i) * frequency);
+            int end = cellEnd(startX, i, count, frequency, floorX);
+            int xi = (int) floorX & 255;
+
+            int aa = permutation[permutation[xi] + yi];
+            int ab = permutation[permutation[xi] + yi + 1];
+            int ba = permutation[permutation[xi + 1] + yi];
+            int bb = permutation[permutation[xi + 1] + yi + 1];
+
+            // Inside a cell each gradient is linear in xf: grad(h, x, y) == GRAD_X[h] * x + GRAD_Y[h] * y
+            cell[AA_X] = GRAD_X[aa & 15];
+            cell[AA_C] = GRAD_Y[aa & 15] * yf;
+            cell[BA_X] = GRAD_X[ba & 15];
+            cell[BA_C] = GRAD_Y[ba & 15] * yf;
+            cell[AB_X] = GRAD_X[ab & 15];
+            cell[AB_C] = GRAD_Y[ab & 15] * (yf - 1);
+            cell[BB_X] = GRAD_X[bb & 15];
+            cell[BB_C] = GRAD_Y[bb & 15] * (yf - 1);
+
+            int j = i;
+            if (VECTORIZED) {
+                j = PerlinNoiseVector.fillCell(startX, i, end, frequency, floorX, v, cell, out);
+            }
+            fillCellScalar(startX, j, end, frequency, floorX, v, cell, out);
+            i = end;
+        }
+    }
+
+    // Mirrors PerlinNoiseVector.fillCell operation for operation; the two must stay in step
+    static void fillCellScalar(int startX, int from, int to, double frequency, double floorX, double v,
+                               double[] cell, double[] out) {
+        for (int j = from; j < to; j++) {
+            double xf = (startX + j) * frequency - floorX;
+            double u = fade(xf);
+            double x1 = lerp(cell[AA_X] * xf + cell[AA_C], cell[BA_X] * (xf - 1) + cell[BA_C], u);
+            double x2 = lerp(cell[AB_X] * xf + cell[AB_C], cell[BB_X] * (xf - 1) + cell[BB_C], u);
+            out[j] = (lerp(x1, x2, v) + 1) / 2;
+        }
+    }
+
+    // First index after i whose sample falls in a different lattice cell than floorX
+    private static int cellEnd(int startX, int i, int count, double frequency, double floorX) {
+        long estimate = (long) Math.ceil((floorX + 1) / frequency) - startX;
+        int end = (int) Math.max(i + 1, Math.min(count, estimate));
+        while (end > i + 1 && Math.floor((startX + end - 1) * frequency) != floorX) {
+            end--;
+        }
+        while (end < count && Math.floor((startX + end) * frequency) == floorX) {
+            end++;
+        }
+        return end;
+    }
+
+    // Fused fractal sum over octaves, matching the per-sample octave loop Terrain used.
+    // scratch must hold at least count values.
+    public void fbmRow(int startX, int y, double baseFrequency, int octaves, double persistence,
+                       double[] out, double[] scratch, int count) {
+        double frequency = baseFrequency;
+        double amplitude = 1.0;
+        double maxValue = 0;
+
+        for (int i = 0; i < count; i++) {
+            out[i] = 0;
+        }
+        for (int octave = 0; octave < octaves; octave++) {
+            noiseRow(startX, y, frequency, scratch, count);
+            for (int i = 0; i < count; i++) {
+                out[i] += scratch[i] * amplitude;
+            }
+            maxValue += amplitude;
+
+            frequency *= 2.0;
+            amplitude *= persistence;
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] /= maxValue;
+        }
+    }
+
+    private static double fade(double t) {
         return t * t * t * (t * (t * 6 - 15) + 10);
     }
 
-    private double lerp(double a, double b, double t) {
+    private static double lerp(double a, double b, double t) {
         return a + t * (b - a);
     }
 
-    private double grad(int hash, double x, double y) {
+    private static double grad(int hash, double x, double y) {
         int h = hash & 15;
         double u = h < 8 ? x : y;
         double v = h < 4 ? y : h == 12 || h == 14 ? x : 0;
@@ -0,0 +1,76 @@
+package net.saturn;
+
+// Histograms of the living population that World keeps current as creatures come and go.
+// Traits never change after birth, so they are updated only on spawn and removal. Energy and age
+// change every tick; World re-tallies them during the death sweep it already makes over everyone.
+public class PopulationStats {
+    public static final int BINS = 50;
+    public static final double MAX_TRAIT = 10;
+    // Energy and age are open-ended; larger values land in the top bin
+    public static final double MAX_ENERGY = 400;
+    public static final double MAX_AGE = 5000;
+
+    // Trait sums stay exact: float values in [0.1, 10] add into a double without rounding
+    // while the total stays below 2^25, i.e. for populations up to about three million.
+    private final Histogram speed = new Histogram(0, MAX_TRAIT, BINS);
+    private final Histogram size = new Histogram(0, MAX_TRAIT, BINS);
+    private final Histogram sense = new Histogram(0, MAX_TRAIT, BINS);
+    private final Histogram energy = new Histogram(0, MAX_ENERGY, BINS);
+    private final Histogram age = new Histogram(0, MAX_AGE, BINS);
+
+    void addCreature(CreatureStore creatures, int i) {
+        speed.add(creatures.getSpeed(i));
+        size.add(creatures.getSize(i));
+        sense.add(creatures.getSense(i));
+        addVitals(creatures, i);
+    }
+
+    void removeTraits(CreatureStore creatures, int i) {
+        speed.remove(creatures.getSpeed(i));
+        size.remove(creatures.getSize(i));
+        sense.remove(creatures.getSense(i));
+    }
+
+    void clearVitals() {
+        energy.clear();
+        age.clear();
+    }
+
+    void addVitals(CreatureStore creatures, int i) {
+        energy.add(creatures.getEnergy(i));
+        age.add(creatures.getAge(i));
+    }
+
+    void removeVitals(CreatureStore creatures, int i) {
+        energy.remove(creatures.getEnergy(i));
+        age.remove(creatures.getAge(i));
+    }
+
+    void copyFrom(PopulationStats other) {
+        speed.copyFrom(other.speed);
+        size.copyFrom(other.size);
+        sense.copyFrom(other.sense);
+        energy.copyFrom(other.energy);
+        age.copyFrom(other.age);
+    }
+
+    public Histogram getSpeed() {
+        return speed;
+    }
+
+    public Histogram getSize() {
+        return size;
+    }
+
+    public Histogram getSense() {
+        return sense;
+    }
+
+    public Histogram getEnergy() {
+        return energy;
+    }
+
+    public Histogram getAge() {
+        return age;
+    }
+}
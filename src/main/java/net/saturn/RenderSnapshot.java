@@ -0,0 +1,116 @@
+package net.saturn;
+
+import java.util.List;
+
+// Copy of everything the Swing panels draw, taken on the simulation thread after a tick.
+// Instances are recycled by SimulationLoop, so arrays only grow and counts mark the live prefix.
+final class RenderSnapshot {
+    long sequence;
+    Terrain terrain;
+    long seed;
+    int width;
+    int height;
+    int generation;
+    // Set by SimulationLoop, not by capture
+    double ticksPerSecond;
+    boolean turbo;
+    final SimulationHistory history = new SimulationHistory();
+
+    int creatureCount;
+    int[] creatureX = new int[0];
+    int[] creatureY = new int[0];
+    float[] creatureSpeed = new float[0];
+    float[] creatureSize = new float[0];
+    float[] creatureSense = new float[0];
+    int[] creatureEnergy = new int[0];
+    long[] creatureHandle = new long[0];
+
+    // Creature the user picked, followed across ticks by its handle; the row is -1 when nothing is
+    // picked or the creature has died since
+    long selectedHandle = EntityHandles.NONE;
+    int selectedRow = -1;
+    int selectedAge;
+    int selectedThirst;
+
+    // Interleaved x, y pairs
+    int foodCount;
+    int[] foodXY = new int[0];
+    int waterCount;
+    int[] waterXY = new int[0];
+    int enemyCount;
+    int[] enemyXY = new int[0];
+
+    final PopulationStats stats = new PopulationStats();
+    // Only filled in when TickProfiler.ENABLED
+    final TickProfiler.Summary profile = new TickProfiler.Summary();
+
+    void capture(World world, long sequence, long selectedHandle) {
+        this.sequence = sequence;
+        terrain = world.getTerrain();
+        seed = world.getSeed();
+        width = world.getWidth();
+        height = world.getHeight();
+        generation = world.getGeneration();
+
+        CreatureStore store = world.getCreatureStore();
+        creatureCount = store.size();
+        if (creatureX.length < creatureCount) {
+            int capacity = Math.max(creatureCount, creatureX.length * 2);
+            creatureX = new int[capacity];
+            creatureY = new int[capacity];
+            creatureSpeed = new float[capacity];
+            creatureSize = new float[capacity];
+            creatureSense = new float[capacity];
+            creatureEnergy = new int[capacity];
+            creatureHandle = new long[capacity];
+        }
+        for (int i = 0; i < creatureCount; i++) {
+            creatureX[i] = store.getX(i);
+            creatureY[i] = store.getY(i);
+            creatureSpeed[i] = (float) store.getSpeed(i);
+            creatureSize[i] = (float) store.getSize(i);
+            creatureSense[i] = (float) store.getSense(i);
+            creatureEnergy[i] = store.getEnergy(i);
+            creatureHandle[i] = world.getCreatureHandle(i);
+        }
+        this.selectedHandle = selectedHandle;
+        selectedRow = world.findCreature(selectedHandle);
+        if (selectedRow >= 0) {
+            selectedAge = store.getAge(selectedRow);
+            selectedThirst = store.getThirst(selectedRow);
+        }
+        stats.copyFrom(world.getStats());
+        if (TickProfiler.ENABLED) {
+            world.getProfiler().copyTo(profile);
+        }
+
+        ResourceStore food = world.getFoodStore();
+        foodCount = food.size();
+        foodXY = ensureCapacity(foodXY, foodCount * 2);
+        for (int i = 0; i < foodCount; i++) {
+            foodXY[2 * i] = food.getX(i);
+            foodXY[2 * i + 1] = food.getY(i);
+        }
+
+        ResourceStore water = world.getWaterStore();
+        waterCount = water.size();
+        waterXY = ensureCapacity(waterXY, waterCount * 2);
+        for (int i = 0; i < waterCount; i++) {
+            waterXY[2 * i] = water.getX(i);
+            waterXY[2 * i + 1] = water.getY(i);
+        }
+
+        List<Enemy> enemies = world.getEnemies();
+        enemyCount = enemies.size();
+        enemyXY = ensureCapacity(enemyXY, enemyCount * 2);
+        for (int i = 0; i < enemyCount; i++) {
+            Enemy enemy = enemies.get(i);
+            enemyXY[2 * i] = enemy.getX();
+            enemyXY[2 * i + 1] = enemy.getY();
+        }
+    }
+
+    private static int[] ensureCapacity(int[] array, int length) {
+        return array.length >= length ? array : new int[Math.max(length, array.length * 2)];
+    }
+}
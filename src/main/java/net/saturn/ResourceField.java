@@ -0,0 +1,84 @@
+package net.saturn;
+
+import java.util.Arrays;
+
+// Nearest-resource field over a coarse grid laid on the terrain. Every cell remembers which
+// resource is closest to its centre, out to a fixed reach, so seeking a resource is one array
+// read however many resources exist. A cell's owner is the source strictly within reach of its
+// centre with the smallest distance, ties going to the lowest id, the same rule SpatialGrid.nearest
+// applies; so the field never depends on the order sources arrived in. Sources can only be added,
+// and an add touches only the cells within reach of the new source.
+final class ResourceField {
+    private static final int FAR = Integer.MAX_VALUE;
+
+    private final int cellSize;
+    private final int cols;
+    private final int rows;
+    private final double reach;
+    private final double reachSq;
+    private final int[] nearest;
+    private final int[] distSq;
+
+    ResourceField(int width, int height, int cellSize, double reach) {
+        this.cellSize = cellSize;
+        this.cols = (width + cellSize - 1) / cellSize;
+        this.rows = (height + cellSize - 1) / cellSize;
+        // A creature anywhere in a cell is at most half a diagonal from its centre
+        this.reach = reach + cellSize * Math.sqrt(0.5);
+        this.reachSq = this.reach * this.reach;
+        this.nearest = new int[cols * rows];
+        this.distSq = new int[cols * rows];
+        Arrays.fill(nearest, -1);
+        Arrays.fill(distSq, FAR);
+    }
+
+    // Eager worlds only; chunked worlds are too large for a field over the whole map
+    static boolean supports(Terrain terrain) {
+        return !terrain.isChunked();
+    }
+
+    // Claims every cell in reach that the new source is closer to than the cell's current owner.
+    // Cells it loses can lie between cells it wins, so the whole disc is visited, not a flood.
+    void add(int id, int x, int y) {
+        int minCy = minCell(y, rows);
+        int maxCy = maxCell(y, rows);
+        int minCx = minCell(x, cols);
+        int maxCx = maxCell(x, cols);
+        for (int cy = minCy; cy <= maxCy; cy++) {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                int cell = cy * cols + cx;
+                long d = centreDistSq(cx, cy, x, y);
+                if (d < reachSq && (d < distSq[cell] || (d == distSq[cell] && id < nearest[cell]))) {
+                    nearest[cell] = id;
+                    distSq[cell] = (int) d;
+                }
+            }
+        }
+    }
+
+    // Resource nearest the centre of the cell holding (x, y), or -1 if none is in reach
+    int nearest(int x, int y) {
+        return nearest[cellIndex(x, y)];
+    }
+
+    private long centreDistSq(int cx, int cy, int x, int y) {
+        long dx = (long) cx * cellSize + cellSize / 2 - x;
+        long dy = (long) cy * cellSize + cellSize / 2 - y;
+        return dx * dx + dy * dy;
+    }
+
+    // Bounds of the cells whose centres can lie within reach of coordinate v
+    private int minCell(int v, int limit) {
+        return Math.max(0, Math.min(limit - 1, (int) Math.floor((v - reach) / cellSize)));
+    }
+
+    private int maxCell(int v, int limit) {
+        return Math.max(0, Math.min(limit - 1, (int) Math.ceil((v + reach) / cellSize)));
+    }
+
+    private int cellIndex(int x, int y) {
+        int cx = Math.max(0, Math.min(cols - 1, x / cellSize));
+        int cy = Math.max(0, Math.min(rows - 1, y / cellSize));
+        return cy * cols + cx;
+    }
+}
@@ -0,0 +1,87 @@
+package net.saturn;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+// Food or water positions in two primitive columns. Removal moves the last entry into the hole,
+// so slots are reused in place and, once the arrays have grown to the working set, spawning and
+// consuming allocate nothing.
+public class ResourceStore {
+    private int[] x;
+    private int[] y;
+    private int count;
+
+    // Builds the object a list view hands out for one entry
+    interface EntryFactory<T> {
+        T create(int x, int y);
+    }
+
+    public ResourceStore(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        x = new int[capacity];
+        y = new int[capacity];
+    }
+
+    public int add(int x, int y) {
+        if (count == this.x.length) {
+            this.x = Arrays.copyOf(this.x, count * 2);
+            this.y = Arrays.copyOf(this.y, count * 2);
+        }
+        int i = count++;
+        this.x[i] = x;
+        this.y[i] = y;
+        return i;
+    }
+
+    // Moves the last entry into slot i; returns the slot it came from, or -1 if none moved
+    public int swapRemove(int i) {
+        int last = --count;
+        if (i == last) {
+            return -1;
+        }
+        x[i] = x[last];
+        y[i] = y[last];
+        return last;
+    }
+
+    public int size() { return count; }
+    public int getX(int i) { return x[i]; }
+    public int getY(int i) { return y[i]; }
+
+    // Read-only view for callers that want objects; each get() returns a fresh copy of the entry
+    <T> List<T> asList(EntryFactory<T> factory) {
+        return new AbstractList<T>() {
+            @Override
+            public T get(int index) {
+                if (index >= count) {
+                    throw new IndexOutOfBoundsException("Index " + index + " out of " + count);
+                }
+                return factory.create(x[index], y[index]);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    // Interleaved x, y pairs
+    void writeTo(ByteBuffer out) {
+        for (int i = 0; i < count; i++) {
+            out.putInt(x[i]).putInt(y[i]);
+        }
+    }
+
+    void readFrom(ByteBuffer in, int count) {
+        x = new int[Math.max(16, count)];
+        y = new int[x.length];
+        this.count = count;
+        for (int i = 0; i < count; i++) {
+            x[i] = in.getInt();
+            y[i] = in.getInt();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package net.saturn;
+
+// SplitMix64 generator. Instances are cheap independent streams, and the static helpers step
+// plain long state so per-entity streams can also live in primitive columns.
+final class Rng {
+    static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    Rng(long seed) {
+        this.state = seed;
+    }
+
+    long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    double nextDouble() {
+        return toUnitDouble(nextLong());
+    }
+
+    // Derives an independent stream; the child never overlaps this one in practice
+    Rng split() {
+        return new Rng(mix64(nextLong() ^ 0x6A09E667F3BCC909L));
+    }
+
+    long getState() {
+        return state;
+    }
+
+    void setState(long state) {
+        this.state = state;
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    static double toUnitDouble(long bits) {
+        return (bits >>> 11) * 0x1.0p-53;
+    }
+
+    static double nextDouble(long[] states, int i) {
+        long next = states[i] + GOLDEN_GAMMA;
+        states[i] = next;
+        return toUnitDouble(mix64(next));
+    }
+}
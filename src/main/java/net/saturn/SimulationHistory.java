@@ -0,0 +1,31 @@
+package net.saturn;
+
+// Per-tick history of the values charted in StatsPanel, recorded on the simulation thread
+class SimulationHistory {
+    static final int CAPACITY = 512;
+
+    final TimeSeries population = new TimeSeries(CAPACITY);
+    final TimeSeries enemies = new TimeSeries(CAPACITY);
+    final TimeSeries food = new TimeSeries(CAPACITY);
+    final TimeSeries averageSpeed = new TimeSeries(CAPACITY);
+    final TimeSeries averageSize = new TimeSeries(CAPACITY);
+    final TimeSeries averageSense = new TimeSeries(CAPACITY);
+
+    void record(World world) {
+        population.add(world.getCreatureStore().size());
+        enemies.add(world.getEnemies().size());
+        food.add(world.getFoodStore().size());
+        averageSpeed.add(world.getAverageSpeed());
+        averageSize.add(world.getAverageSize());
+        averageSense.add(world.getAverageSense());
+    }
+
+    void copyFrom(SimulationHistory other) {
+        population.copyFrom(other.population);
+        enemies.copyFrom(other.enemies);
+        food.copyFrom(other.food);
+        averageSpeed.copyFrom(other.averageSpeed);
+        averageSize.copyFrom(other.averageSize);
+        averageSense.copyFrom(other.averageSense);
+    }
+}
@@ -0,0 +1,231 @@
+package net.saturn;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+// Runs World.update() on its own thread and hands render snapshots to the EDT through a
+// triple buffer: the loop owns one snapshot, the EDT owns one, and the third is the latest
+// published frame. Neither side ever blocks the other.
+class SimulationLoop {
+    static final long FRAME_NANOS = 16_666_667L;
+    // Ticks a late normal-speed loop may replay at once before it drops the backlog
+    private static final int MAX_CATCH_UP_TICKS = 10;
+    private static final long RATE_WINDOW_NANOS = 500_000_000L;
+
+    private final World world;
+    private final Object pauseLock = new Object();
+    private final AtomicReference<RenderSnapshot> ready;
+    private final SimulationHistory history = new SimulationHistory();
+    private RenderSnapshot back; // simulation thread only
+    private RenderSnapshot front; // EDT only
+    private long sequence;
+    private long windowStart;
+    private long windowTicks;
+    private double ticksPerSecond;
+
+    private volatile boolean running;
+    private boolean parked; // guarded by pauseLock
+    private volatile boolean stopped;
+    private volatile int tickDelayMillis;
+    private volatile boolean turbo;
+    private volatile long selectedCreature = EntityHandles.NONE;
+    private Thread thread;
+
+    SimulationLoop(World world, int tickDelayMillis) {
+        this.world = world;
+        this.tickDelayMillis = tickDelayMillis;
+        this.back = new RenderSnapshot();
+        this.front = new RenderSnapshot();
+
+        // Publish the initial state so the panel has something to draw before the first tick
+        history.record(world);
+        RenderSnapshot initial = new RenderSnapshot();
+        initial.capture(world, ++sequence, EntityHandles.NONE);
+        initial.history.copyFrom(history);
+        this.ready = new AtomicReference<>(initial);
+    }
+
+    World getWorld() {
+        return world;
+    }
+
+    void start() {
+        thread = new Thread(this::runLoop, "simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Stops the thread and waits for the tick in progress to finish
+    void stop() {
+        stopped = true;
+        synchronized (pauseLock) {
+            pauseLock.notifyAll();
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    void setRunning(boolean running) {
+        synchronized (pauseLock) {
+            this.running = running;
+            pauseLock.notifyAll();
+        }
+    }
+
+    // Parks the simulation thread between ticks, runs action on the calling thread, then resumes
+    // if the loop was running. The world is not touched by the loop while action runs.
+    void runPaused(Runnable action) {
+        boolean wasRunning;
+        synchronized (pauseLock) {
+            wasRunning = running;
+            running = false;
+            pauseLock.notifyAll();
+            while (!parked && !stopped && thread != null && thread.isAlive()) {
+                try {
+                    pauseLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        try {
+            action.run();
+        } finally {
+            setRunning(wasRunning);
+        }
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    int getTickDelay() {
+        return tickDelayMillis;
+    }
+
+    void setTickDelay(int tickDelayMillis) {
+        this.tickDelayMillis = tickDelayMillis;
+    }
+
+    boolean isTurbo() {
+        return turbo;
+    }
+
+    // Turbo ignores the tick delay and runs as many ticks as fit in one frame before publishing
+    void setTurbo(boolean turbo) {
+        this.turbo = turbo;
+    }
+
+    // Handle of the creature to follow in published snapshots, or EntityHandles.NONE
+    void selectCreature(long handle) {
+        selectedCreature = handle;
+    }
+
+    // Called on the EDT. Returns the newest published snapshot, which stays valid until the next call.
+    RenderSnapshot acquireSnapshot() {
+        // Only swap when something newer was published, otherwise the EDT would get its previous frame back
+        if (ready.get().sequence > front.sequence) {
+            front = ready.getAndSet(front);
+        }
+        return front;
+    }
+
+    private void runLoop() {
+        long previous = System.nanoTime();
+        long accumulator = 0;
+        windowStart = previous;
+        while (!stopped) {
+            if (!running) {
+                if (!awaitRunning()) {
+                    return;
+                }
+                // Time spent paused must not turn into a burst of catch-up ticks
+                previous = System.nanoTime();
+                accumulator = 0;
+                windowStart = previous;
+                windowTicks = 0;
+            }
+
+            long frameStart = System.nanoTime();
+            if (turbo) {
+                do {
+                    tick();
+                } while (System.nanoTime() - frameStart < FRAME_NANOS && running && !stopped);
+                publish();
+                previous = System.nanoTime();
+                accumulator = 0;
+                continue;
+            }
+
+            // Fixed timestep: real time accumulates and is paid out in whole ticks of tickDelay each
+            long step = tickDelayMillis * 1_000_000L;
+            accumulator += frameStart - previous;
+            previous = frameStart;
+            int steps = 0;
+            while (accumulator >= step && steps < MAX_CATCH_UP_TICKS) {
+                tick();
+                accumulator -= step;
+                steps++;
+            }
+            if (steps == MAX_CATCH_UP_TICKS) {
+                accumulator = 0;
+            }
+            if (steps > 0) {
+                publish();
+            }
+
+            long waitMillis = (step - accumulator) / 1_000_000;
+            if (waitMillis > 0) {
+                try {
+                    Thread.sleep(waitMillis);
+                } catch (InterruptedException e) {
+                    if (stopped) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private void tick() {
+        world.update();
+        history.record(world);
+        windowTicks++;
+    }
+
+    private void publish() {
+        long now = System.nanoTime();
+        if (now - windowStart >= RATE_WINDOW_NANOS) {
+            ticksPerSecond = windowTicks * 1e9 / (now - windowStart);
+            windowStart = now;
+            windowTicks = 0;
+        }
+        back.capture(world, ++sequence, selectedCreature);
+        back.ticksPerSecond = running ? ticksPerSecond : 0;
+        back.turbo = turbo;
+        back.history.copyFrom(history);
+        back = ready.getAndSet(back);
+    }
+
+    private boolean awaitRunning() {
+        synchronized (pauseLock) {
+            parked = true;
+            pauseLock.notifyAll();
+            while (!running && !stopped) {
+                try {
+                    pauseLock.wait();
+                } catch (InterruptedException e) {
+                    // Re-check the flags; stop() interrupts to get here
+                }
+            }
+            parked = false;
+        }
+        return !stopped;
+    }
+}
@@ -0,0 +1,192 @@
+package net.saturn;
+
+import java.util.Arrays;
+
+public class SpatialGrid {
+    private static final int NONE = -1;
+
+    private final int cellSize;
+    private final int cols;
+    private final int rows;
+    private final int[] head;
+
+    // Per-id intrusive list links, indexed by the caller's dense entity ids
+    private int[] next;
+    private int[] prev;
+    private int[] cellOf;
+    private int[] xs;
+    private int[] ys;
+    private int size;
+
+    public SpatialGrid(int width, int height, int cellSize) {
+        this.cellSize = cellSize;
+        this.cols = Math.max(1, (width + cellSize - 1) / cellSize);
+        this.rows = Math.max(1, (height + cellSize - 1) / cellSize);
+        this.head = new int[cols * rows];
+        Arrays.fill(head, NONE);
+
+        int capacity = 64;
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+        this.cellOf = new int[capacity];
+        this.xs = new int[capacity];
+        this.ys = new int[capacity];
+        Arrays.fill(cellOf, NONE);
+    }
+
+    public void insert(int id, int x, int y) {
+        ensureCapacity(id + 1);
+        if (cellOf[id] != NONE) {
+            unlink(id);
+        } else {
+            size++;
+        }
+        xs[id] = x;
+        ys[id] = y;
+        link(id, cellIndex(x, y));
+    }
+
+    public void remove(int id) {
+        if (id >= cellOf.length || cellOf[id] == NONE) {
+            return;
+        }
+        unlink(id);
+        cellOf[id] = NONE;
+        size--;
+    }
+
+    public void move(int id, int x, int y) {
+        xs[id] = x;
+        ys[id] = y;
+        int cell = cellIndex(x, y);
+        if (cell != cellOf[id]) {
+            unlink(id);
+            link(id, cell);
+        }
+    }
+
+    // Moves the entry stored under 'from' to 'to', used when the owner swap-removes
+    public void relabel(int from, int to) {
+        if (from == to || from >= cellOf.length || cellOf[from] == NONE) {
+            return;
+        }
+        int x = xs[from];
+        int y = ys[from];
+        remove(from);
+        insert(to, x, y);
+    }
+
+    public boolean contains(int id) {
+        return id < cellOf.length && cellOf[id] != NONE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(head, NONE);
+        Arrays.fill(cellOf, NONE);
+        size = 0;
+    }
+
+    // Returns the id of the closest entry strictly within range, or -1. Ties go to the lowest id,
+    // so the answer depends only on positions and never on the order entries were linked.
+    public int nearest(int x, int y, double range) {
+        if (range <= 0 || size == 0) {
+            return NONE;
+        }
+        double rangeSq = range * range;
+        int cx = clamp(x / cellSize, cols);
+        int cy = clamp(y / cellSize, rows);
+        int maxRing = Math.min((int) Math.ceil(range / cellSize) + 1, Math.max(cols, rows));
+
+        int best = NONE;
+        long bestDistSq = Long.MAX_VALUE;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Every cell in this ring is at least (ring - 1) cells away from the query point;
+            // an entry exactly as far as the best could still win the tie, so only strictly farther rings stop
+            if (ring > 1) {
+                long minReach = (long) (ring - 1) * cellSize;
+                if (minReach * minReach > bestDistSq || minReach * minReach >= rangeSq) {
+                    break;
+                }
+            }
+
+            int minX = cx - ring;
+            int maxX = cx + ring;
+            int minY = cy - ring;
+            int maxY = cy + ring;
+            for (int gy = minY; gy <= maxY; gy++) {
+                if (gy < 0 || gy >= rows) {
+                    continue;
+                }
+                boolean edgeRow = gy == minY || gy == maxY;
+                // Interior rows of a ring only contribute their two end cells
+                int step = edgeRow ? 1 : maxX - minX;
+                for (int gx = minX; gx <= maxX; gx += step) {
+                    if (gx < 0 || gx >= cols) {
+                        continue;
+                    }
+                    for (int id = head[gy * cols + gx]; id != NONE; id = next[id]) {
+                        long dx = xs[id] - x;
+                        long dy = ys[id] - y;
+                        long distSq = dx * dx + dy * dy;
+                        if (distSq < rangeSq && (distSq < bestDistSq || (distSq == bestDistSq && id < best))) {
+                            bestDistSq = distSq;
+                            best = id;
+                        }
+                    }
+                }
+            }
+        }
+
+        return best;
+    }
+
+    private void link(int id, int cell) {
+        cellOf[id] = cell;
+        prev[id] = NONE;
+        next[id] = head[cell];
+        if (head[cell] != NONE) {
+            prev[head[cell]] = id;
+        }
+        head[cell] = id;
+    }
+
+    private void unlink(int id) {
+        int p = prev[id];
+        int n = next[id];
+        if (p != NONE) {
+            next[p] = n;
+        } else {
+            head[cellOf[id]] = n;
+        }
+        if (n != NONE) {
+            prev[n] = p;
+        }
+    }
+
+    private int cellIndex(int x, int y) {
+        return clamp(y / cellSize, rows) * cols + clamp(x / cellSize, cols);
+    }
+
+    private static int clamp(int value, int limit) {
+        return value < 0 ? 0 : Math.min(value, limit - 1);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= cellOf.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, cellOf.length * 2);
+        int oldCapacity = cellOf.length;
+        next = Arrays.copyOf(next, newCapacity);
+        prev = Arrays.copyOf(prev, newCapacity);
+        xs = Arrays.copyOf(xs, newCapacity);
+        ys = Arrays.copyOf(ys, newCapacity);
+        cellOf = Arrays.copyOf(cellOf, newCapacity);
+        Arrays.fill(cellOf, oldCapacity, newCapacity, NONE);
+    }
+}
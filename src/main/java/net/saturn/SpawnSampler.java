@@ -0,0 +1,157 @@
+package net.saturn;
+
+// Draws spawn cells without rejection loops. Walkable cells are indexed once, grouped by biome,
+// so a uniform walkable cell is one array read. Food and water keep the old distribution: each
+// attempt used to pick any cell uniformly and keep it with probability rate / 20. The attempt now
+// succeeds with the overall acceptance rate, and a success picks a biome from an alias table
+// weighted by cells * rate and then a uniform cell in that biome.
+// Eager terrain only; chunked worlds are too large to index and keep rejection sampling.
+final class SpawnSampler {
+    // Spawn rates are out of this many, matching rand.nextInt(20) < rate
+    static final int RATE_SCALE = 20;
+
+    private final int[] cells;
+    private final int[] biomeStart;
+    private final int[] biomeCount;
+    private final RateTable food;
+    private final RateTable water;
+
+    SpawnSampler(Terrain terrain) {
+        int width = terrain.getWidth();
+        int height = terrain.getHeight();
+        int biomes = Biome.values().length;
+
+        // Counting sort of walkable cells by biome
+        biomeCount = new int[biomes];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int biome = terrain.getBiomeIdAt(x, y);
+                if (Biome.WALKABLE[biome]) {
+                    biomeCount[biome]++;
+                }
+            }
+        }
+        biomeStart = new int[biomes];
+        int total = 0;
+        for (int b = 0; b < biomes; b++) {
+            biomeStart[b] = total;
+            total += biomeCount[b];
+        }
+        cells = new int[total];
+        int[] next = biomeStart.clone();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int biome = terrain.getBiomeIdAt(x, y);
+                if (Biome.WALKABLE[biome]) {
+                    cells[next[biome]++] = y * width + x;
+                }
+            }
+        }
+
+        long allCells = (long) width * height;
+        food = new RateTable(biomeCount, Biome.FOOD_SPAWN_RATE, allCells);
+        water = new RateTable(biomeCount, Biome.WATER_SPAWN_RATE, allCells);
+    }
+
+    // Eager terrain indexes cells as y * width + x in an int, so only it can be sampled
+    static boolean supports(Terrain terrain) {
+        return !terrain.isChunked();
+    }
+
+    boolean hasWalkableCells() {
+        return cells.length > 0;
+    }
+
+    // Uniform over walkable cells, as y * width + x
+    int walkableCell(Rng rand) {
+        return cells[rand.nextInt(cells.length)];
+    }
+
+    // One food spawn attempt: a cell, or -1 when the attempt would have been rejected
+    int foodCell(Rng rand) {
+        return sample(food, rand);
+    }
+
+    int waterCell(Rng rand) {
+        return sample(water, rand);
+    }
+
+    private int sample(RateTable table, Rng rand) {
+        if (!(rand.nextDouble() < table.acceptance)) {
+            return -1;
+        }
+        int column = rand.nextInt(table.biomes.length);
+        int biome = rand.nextDouble() < table.probability[column] ? table.biomes[column] : table.alias[column];
+        return cells[biomeStart[biome] + rand.nextInt(biomeCount[biome])];
+    }
+
+    // Vose alias table over the biomes that can spawn a resource, weighted by cells * rate
+    private static final class RateTable {
+        final double acceptance;
+        final int[] biomes;
+        final double[] probability;
+        final int[] alias;
+
+        RateTable(int[] biomeCount, int[] rate, long allCells) {
+            int n = 0;
+            long totalWeight = 0;
+            for (int b = 0; b < biomeCount.length; b++) {
+                if (biomeCount[b] > 0 && rate[b] > 0) {
+                    n++;
+                    totalWeight += (long) biomeCount[b] * rate[b];
+                }
+            }
+            acceptance = allCells == 0 ? 0 : (double) totalWeight / ((double) allCells * RATE_SCALE);
+            biomes = new int[n];
+            probability = new double[n];
+            alias = new int[n];
+            if (n == 0) {
+                return;
+            }
+
+            double[] scaled = new double[n];
+            int k = 0;
+            for (int b = 0; b < biomeCount.length; b++) {
+                if (biomeCount[b] > 0 && rate[b] > 0) {
+                    biomes[k] = b;
+                    scaled[k] = (double) biomeCount[b] * rate[b] * n / totalWeight;
+                    k++;
+                }
+            }
+            int[] small = new int[n];
+            int[] large = new int[n];
+            int smallCount = 0;
+            int largeCount = 0;
+            for (int i = 0; i < n; i++) {
+                if (scaled[i] < 1) {
+                    small[smallCount++] = i;
+                } else {
+                    large[largeCount++] = i;
+                }
+            }
+            while (smallCount > 0 && largeCount > 0) {
+                int s = small[--smallCount];
+                int l = large[--largeCount];
+                probability[s] = scaled[s];
+                alias[s] = biomes[l];
+                scaled[l] -= 1 - scaled[s];
+                if (scaled[l] < 1) {
+                    small[smallCount++] = l;
+                } else {
+                    large[largeCount++] = l;
+                }
+            }
+            // Whatever is left is 1 up to rounding
+            while (largeCount > 0) {
+                int l = large[--largeCount];
+                probability[l] = 1;
+                alias[l] = biomes[l];
+            }
+            while (smallCount > 0) {
+                int s = small[--smallCount];
+                probability[s] = 1;
+                alias[s] = biomes[s];
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package net.saturn;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+// Pre-rendered, anti-aliased sprites kept as premultiplied ARGB pixels, so drawing an entity is a
+// short copy loop in FrameBuffer rather than a shape fill. Creature sprites are bucketed by pixel
+// size and quantized speed/sense colour and built on first use.
+class SpriteCache {
+    static final int MIN_CREATURE_SIZE = 5;
+    static final int MAX_CREATURE_SIZE = 35;
+    // Speed and sense colour channels are quantized to this many levels
+    static final int COLOR_LEVELS = 16;
+    static final int WATER_RADIUS = 8;
+    static final int FOOD_RADIUS = 3;
+    static final int ENEMY_SIZE = 12;
+
+    private static final Color WATER_OUTER = new Color(50, 150, 255, 180);
+    private static final Color WATER_INNER = new Color(100, 180, 255, 120);
+    private static final Color FOOD_COLOR = new Color(100, 200, 100);
+    private static final Color ENEMY_FILL = new Color(255, 50, 50);
+    private static final Color ENEMY_OUTLINE = new Color(180, 0, 0);
+
+    static final class Sprite {
+        final int width;
+        final int height;
+        final int[] pixels;
+        // Per row, the fully opaque run [opaqueStart, opaqueEnd) that can be copied without blending
+        final int[] opaqueStart;
+        final int[] opaqueEnd;
+
+        Sprite(BufferedImage image) {
+            this.width = image.getWidth();
+            this.height = image.getHeight();
+            this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            this.opaqueStart = new int[height];
+            this.opaqueEnd = new int[height];
+
+            for (int y = 0; y < height; y++) {
+                int offset = y * width;
+                int start = 0;
+                while (start < width && pixels[offset + start] >>> 24 != 255) {
+                    start++;
+                }
+                int end = start;
+                while (end < width && pixels[offset + end] >>> 24 == 255) {
+                    end++;
+                }
+                opaqueStart[y] = start;
+                opaqueEnd[y] = end;
+            }
+        }
+    }
+
+    private final Sprite water;
+    private final Sprite food;
+    private final Sprite enemy;
+    private final Sprite[] creatures =
+            new Sprite[(MAX_CREATURE_SIZE - MIN_CREATURE_SIZE + 1) * COLOR_LEVELS * COLOR_LEVELS];
+
+    SpriteCache() {
+        BufferedImage image = newImage(2 * WATER_RADIUS);
+        Graphics2D g = createGraphics(image);
+        g.setColor(WATER_OUTER);
+        g.fillOval(0, 0, 16, 16);
+        g.setColor(WATER_INNER);
+        g.fillOval(3, 3, 10, 10);
+        g.dispose();
+        water = new Sprite(image);
+
+        image = newImage(2 * FOOD_RADIUS);
+        g = createGraphics(image);
+        g.setColor(FOOD_COLOR);
+        g.fillOval(0, 0, 6, 6);
+        g.dispose();
+        food = new Sprite(image);
+
+        // One extra pixel so the outline's right and bottom edges fit
+        image = newImage(ENEMY_SIZE + 1);
+        g = createGraphics(image);
+        int[] xPoints = {ENEMY_SIZE / 2, 0, ENEMY_SIZE};
+        int[] yPoints = {0, ENEMY_SIZE, ENEMY_SIZE};
+        g.setColor(ENEMY_FILL);
+        g.fillPolygon(xPoints, yPoints, 3);
+        g.setColor(ENEMY_OUTLINE);
+        g.drawPolygon(xPoints, yPoints, 3);
+        g.dispose();
+        enemy = new Sprite(image);
+    }
+
+    Sprite water() {
+        return water;
+    }
+
+    Sprite food() {
+        return food;
+    }
+
+    Sprite enemy() {
+        return enemy;
+    }
+
+    static int creatureSize(float sizeTrait) {
+        int size = (int) (sizeTrait * 3 + 5);
+        return Math.max(MIN_CREATURE_SIZE, Math.min(MAX_CREATURE_SIZE, size));
+    }
+
+    static int colorLevel(float trait) {
+        int channel = Math.max(0, Math.min(255, (int) (trait * 25)));
+        return channel * COLOR_LEVELS / 256;
+    }
+
+    Sprite creature(int size, int redLevel, int blueLevel) {
+        int index = ((size - MIN_CREATURE_SIZE) * COLOR_LEVELS + redLevel) * COLOR_LEVELS + blueLevel;
+        Sprite sprite = creatures[index];
+        if (sprite == null) {
+            BufferedImage image = newImage(size);
+            Graphics2D g = createGraphics(image);
+            g.setColor(new Color(levelToChannel(redLevel), 100, levelToChannel(blueLevel)));
+            g.fillOval(0, 0, size, size);
+            g.dispose();
+            sprite = new Sprite(image);
+            creatures[index] = sprite;
+        }
+        return sprite;
+    }
+
+    // Centre of the bucket, so quantized colours stay close to the exact ones
+    private static int levelToChannel(int level) {
+        return level * 256 / COLOR_LEVELS + 128 / COLOR_LEVELS;
+    }
+
+    private static BufferedImage newImage(int size) {
+        return new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    private static Graphics2D createGraphics(BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        return g;
+    }
+}
@@ -0,0 +1,111 @@
+package net.saturn;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// A block of rows for one table, held as one primitive array per column. Integer columns are
+// encoded as zigzag varints of the difference to the previous row, so slowly changing counters
+// shrink to a byte or two before the whole block is deflated. Doubles are stored as raw bits.
+final class TelemetryBatch {
+    final TelemetryTable table;
+    final long[][] longs;
+    final double[][] doubles;
+    int rows;
+
+    TelemetryBatch(TelemetryTable table, int capacity) {
+        this.table = table;
+        int columns = table.columns.length;
+        longs = new long[columns][];
+        doubles = new double[columns][];
+        for (int c = 0; c < columns; c++) {
+            if (table.types[c] == TelemetryTable.LONG) {
+                longs[c] = new long[capacity];
+            } else {
+                doubles[c] = new double[capacity];
+            }
+        }
+    }
+
+    int capacity() {
+        return longs[0] != null ? longs[0].length : doubles[0].length;
+    }
+
+    boolean isFull() {
+        return rows == capacity();
+    }
+
+    // Appends the encoded block to out, growing it as needed, and returns the encoded length
+    int encode(byte[][] out) {
+        byte[] buffer = out[0];
+        int pos = 0;
+        for (int c = 0; c < longs.length; c++) {
+            // Worst case ten bytes per varint and eight per double
+            int needed = pos + rows * 10;
+            if (buffer.length < needed) {
+                buffer = Arrays.copyOf(buffer, Math.max(needed, buffer.length * 2));
+            }
+            if (longs[c] != null) {
+                long previous = 0;
+                for (int r = 0; r < rows; r++) {
+                    long delta = longs[c][r] - previous;
+                    previous = longs[c][r];
+                    long zigzag = (delta << 1) ^ (delta >> 63);
+                    while ((zigzag & ~0x7FL) != 0) {
+                        buffer[pos++] = (byte) ((zigzag & 0x7F) | 0x80);
+                        zigzag >>>= 7;
+                    }
+                    buffer[pos++] = (byte) zigzag;
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    long bits = Double.doubleToRawLongBits(doubles[c][r]);
+                    for (int shift = 56; shift >= 0; shift -= 8) {
+                        buffer[pos++] = (byte) (bits >>> shift);
+                    }
+                }
+            }
+        }
+        out[0] = buffer;
+        return pos;
+    }
+
+    void decode(byte[] buffer, int length, int rowCount) throws IOException {
+        if (rowCount > capacity()) {
+            throw new IOException("Block of " + rowCount + " rows exceeds " + capacity());
+        }
+        rows = rowCount;
+        int pos = 0;
+        try {
+            for (int c = 0; c < longs.length; c++) {
+                if (longs[c] != null) {
+                    long previous = 0;
+                    for (int r = 0; r < rows; r++) {
+                        long zigzag = 0;
+                        int shift = 0;
+                        byte b;
+                        do {
+                            b = buffer[pos++];
+                            zigzag |= (long) (b & 0x7F) << shift;
+                            shift += 7;
+                        } while (b < 0);
+                        previous += (zigzag >>> 1) ^ -(zigzag & 1);
+                        longs[c][r] = previous;
+                    }
+                } else {
+                    for (int r = 0; r < rows; r++) {
+                        long bits = 0;
+                        for (int k = 0; k < 8; k++) {
+                            bits = (bits << 8) | (buffer[pos++] & 0xFF);
+                        }
+                        doubles[c][r] = Double.longBitsToDouble(bits);
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Truncated telemetry block", e);
+        }
+        if (pos != length) {
+            throw new IOException("Telemetry block has " + (length - pos) + " trailing bytes");
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package net.saturn;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Streams a TelemetryWriter file one block at a time; only the current block is held in memory.
+// Values returned for a block stay valid until the next call to nextBlock().
+//
+//     try (TelemetryReader reader = TelemetryReader.open(path)) {
+//         while (reader.nextBlock()) {
+//             if (reader.getTable().equals("generations")) { ... reader.getLong(column, row) ... }
+//         }
+//     }
+public class TelemetryReader implements AutoCloseable {
+    private final DataInputStream in;
+    private final TelemetryTable[] tables;
+    private final TelemetryBatch[] batches;
+    private final Inflater inflater = new Inflater();
+    private byte[] compressed = new byte[1 << 16];
+    private byte[] raw = new byte[1 << 16];
+    private TelemetryBatch current;
+
+    private TelemetryReader(DataInputStream in) throws IOException {
+        this.in = in;
+        if (in.readInt() != TelemetryWriter.MAGIC) {
+            throw new IOException("Not a telemetry file");
+        }
+        int version = in.readInt();
+        if (version != TelemetryWriter.VERSION) {
+            throw new IOException("Unsupported telemetry version " + version);
+        }
+        int tableCount = in.readInt();
+        tables = new TelemetryTable[tableCount];
+        batches = new TelemetryBatch[tableCount];
+        for (int t = 0; t < tableCount; t++) {
+            int id = in.readUnsignedByte();
+            String name = in.readUTF();
+            int columnCount = in.readInt();
+            String[] columns = new String[columnCount];
+            byte[] types = new byte[columnCount];
+            for (int c = 0; c < columnCount; c++) {
+                columns[c] = in.readUTF();
+                types[c] = in.readByte();
+            }
+            if (id != t) {
+                throw new IOException("Telemetry tables out of order");
+            }
+            tables[t] = new TelemetryTable(id, name, columns, types);
+        }
+    }
+
+    public static TelemetryReader open(Path file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        try {
+            return new TelemetryReader(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    // Advances to the next block; false at end of file. A block cut off by a crash also ends the stream.
+    public boolean nextBlock() throws IOException {
+        int tableId;
+        int rows;
+        int rawLength;
+        try {
+            tableId = in.readUnsignedByte();
+            rows = in.readInt();
+            rawLength = in.readInt();
+            int compressedLength = in.readInt();
+            if (tableId >= tables.length || rows <= 0 || rawLength < 0 || compressedLength < 0) {
+                throw new IOException("Corrupt telemetry block header");
+            }
+            if (compressed.length < compressedLength) {
+                compressed = new byte[compressedLength];
+            }
+            in.readFully(compressed, 0, compressedLength);
+            if (raw.length < rawLength) {
+                raw = new byte[rawLength];
+            }
+            inflater.reset();
+            inflater.setInput(compressed, 0, compressedLength);
+            if (inflater.inflate(raw, 0, rawLength) != rawLength || !inflater.finished()) {
+                throw new IOException("Telemetry block does not inflate to its recorded length");
+            }
+        } catch (EOFException e) {
+            current = null;
+            return false;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt telemetry block", e);
+        }
+
+        TelemetryBatch batch = batches[tableId];
+        if (batch == null || batch.capacity() < rows) {
+            batch = new TelemetryBatch(tables[tableId], rows);
+            batches[tableId] = batch;
+        }
+        batch.decode(raw, rawLength, rows);
+        current = batch;
+        return true;
+    }
+
+    public String getTable() {
+        return current.table.name;
+    }
+
+    public int getRowCount() {
+        return current.rows;
+    }
+
+    public String[] getColumns() {
+        return current.table.columns.clone();
+    }
+
+    // Index of the named column in the current block's table, or -1
+    public int getColumn(String name) {
+        return current.table.columnIndex(name);
+    }
+
+    public boolean isDouble(int column) {
+        return current.table.types[column] == TelemetryTable.DOUBLE;
+    }
+
+    public long getLong(int column, int row) {
+        long[] values = current.longs[column];
+        return values != null ? values[row] : (long) current.doubles[column][row];
+    }
+
+    public double getDouble(int column, int row) {
+        double[] values = current.doubles[column];
+        return values != null ? values[row] : current.longs[column][row];
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+
+    // Dumps one table of a telemetry file as CSV: TelemetryReader FILE [ticks|generations]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: TelemetryReader FILE [ticks|generations]");
+            System.exit(2);
+        }
+        String table = args.length == 2 ? args[1] : "generations";
+        PrintStream out = System.out;
+        boolean headerWritten = false;
+        try (TelemetryReader reader = open(Paths.get(args[0]))) {
+            StringBuilder line = new StringBuilder();
+            while (reader.nextBlock()) {
+                if (!reader.getTable().equals(table)) {
+                    continue;
+                }
+                String[] columns = reader.getColumns();
+                if (!headerWritten) {
+                    out.println(String.join(",", Arrays.asList(columns)));
+                    headerWritten = true;
+                }
+                for (int r = 0; r < reader.getRowCount(); r++) {
+                    line.setLength(0);
+                    for (int c = 0; c < columns.length; c++) {
+                        if (c > 0) {
+                            line.append(',');
+                        }
+                        if (reader.isDouble(c)) {
+                            line.append(String.format(Locale.ROOT, "%.4f", reader.getDouble(c, r)));
+                        } else {
+                            line.append(reader.getLong(c, r));
+                        }
+                    }
+                    out.println(line);
+                }
+            }
+        }
+        out.flush();
+    }
+}
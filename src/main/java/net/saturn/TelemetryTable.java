@@ -0,0 +1,80 @@
+package net.saturn;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Column layout of one telemetry table. The writer stores every table's layout in the file header,
+// so the reader needs no schema of its own.
+final class TelemetryTable {
+    static final byte LONG = 0;
+    static final byte DOUBLE = 1;
+
+    static final String[] TRAITS = {"speed", "size", "sense"};
+
+    final int id;
+    final String name;
+    final String[] columns;
+    final byte[] types;
+
+    TelemetryTable(int id, String name, String[] columns, byte[] types) {
+        if (columns.length != types.length) {
+            throw new IllegalArgumentException("Every column needs a type");
+        }
+        this.id = id;
+        this.name = name;
+        this.columns = columns;
+        this.types = types;
+    }
+
+    int columnIndex(String column) {
+        for (int c = 0; c < columns.length; c++) {
+            if (columns[c].equals(column)) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    // One row per tick: population and the births and deaths of that tick
+    static TelemetryTable ticks() {
+        Builder b = new Builder();
+        b.add("tick", LONG).add("generation", LONG).add("population", LONG).add("births", LONG)
+                .add("starved", LONG).add("dehydrated", LONG).add("predated", LONG)
+                .add("food", LONG).add("water", LONG).add("enemies", LONG);
+        return b.build(0, "ticks");
+    }
+
+    // One row per generation: totals since the previous row and the trait distributions at rollover
+    static TelemetryTable generations() {
+        Builder b = new Builder();
+        b.add("generation", LONG).add("tick", LONG).add("population", LONG).add("births", LONG)
+                .add("starved", LONG).add("dehydrated", LONG).add("predated", LONG);
+        for (String trait : TRAITS) {
+            b.add(trait + "_mean", DOUBLE).add(trait + "_p10", DOUBLE)
+                    .add(trait + "_p50", DOUBLE).add(trait + "_p90", DOUBLE);
+            for (int bin = 0; bin < PopulationStats.BINS; bin++) {
+                b.add(trait + "_bin" + bin, LONG);
+            }
+        }
+        return b.build(1, "generations");
+    }
+
+    private static final class Builder {
+        private final List<String> columns = new ArrayList<>();
+        private final List<Byte> types = new ArrayList<>();
+
+        Builder add(String column, byte type) {
+            columns.add(column);
+            types.add(type);
+            return this;
+        }
+
+        TelemetryTable build(int id, String name) {
+            byte[] typeArray = new byte[types.size()];
+            for (int i = 0; i < typeArray.length; i++) {
+                typeArray[i] = types.get(i);
+            }
+            return new TelemetryTable(id, name, columns.toArray(new String[0]), typeArray);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package net.saturn;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.Deflater;
+
+// Append-only telemetry log fed by World at the end of every update. Rows go into primitive column
+// batches on the simulation thread; full batches are encoded, deflated and written by a background
+// thread. Each table has a small pool of batches, so a slow disk stalls the simulation instead of
+// growing memory. Read the file back with TelemetryReader.
+//
+// File layout: magic, version, table layouts, then blocks of (table id, rows, raw length,
+// deflated length, deflated bytes) until end of file.
+public class TelemetryWriter implements AutoCloseable {
+    static final int MAGIC = 0x45564F54; // "EVOT"
+    static final int VERSION = 1;
+    private static final int TICK_BATCH_ROWS = 4096;
+    private static final int GENERATION_BATCH_ROWS = 256;
+    private static final int POOLED_BATCHES = 3;
+
+    private final TelemetryTable ticks = TelemetryTable.ticks();
+    private final TelemetryTable generations = TelemetryTable.generations();
+    private final BlockingQueue<TelemetryBatch> tickPool = new ArrayBlockingQueue<>(POOLED_BATCHES);
+    private final BlockingQueue<TelemetryBatch> generationPool = new ArrayBlockingQueue<>(POOLED_BATCHES);
+    // Batches waiting to be written, in order; an empty ticks batch asks the writer to finish
+    private final BlockingQueue<TelemetryBatch> pending = new LinkedBlockingQueue<>();
+    private final DataOutputStream out;
+    private final Thread thread;
+    private volatile IOException failure;
+    private boolean closed;
+
+    private TelemetryBatch tickBatch;
+    private TelemetryBatch generationBatch;
+    private long tick;
+    // Totals since the last generation row
+    private long births;
+    private long starved;
+    private long dehydrated;
+    private long predated;
+
+    public TelemetryWriter(Path file) throws IOException {
+        for (int i = 0; i < POOLED_BATCHES; i++) {
+            tickPool.add(new TelemetryBatch(ticks, TICK_BATCH_ROWS));
+            generationPool.add(new TelemetryBatch(generations, GENERATION_BATCH_ROWS));
+        }
+        tickBatch = tickPool.poll();
+        generationBatch = generationPool.poll();
+
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(2);
+        writeLayout(ticks);
+        writeLayout(generations);
+
+        thread = new Thread(this::writeLoop, "telemetry");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void recordTick(World world) {
+        tick++;
+        births += world.getBirths();
+        starved += world.getStarvationDeaths();
+        dehydrated += world.getThirstDeaths();
+        predated += world.getPredationDeaths();
+
+        TelemetryBatch b = tickBatch;
+        int r = b.rows++;
+        b.longs[0][r] = tick;
+        b.longs[1][r] = world.getGeneration();
+        b.longs[2][r] = world.getCreatureStore().size();
+        b.longs[3][r] = world.getBirths();
+        b.longs[4][r] = world.getStarvationDeaths();
+        b.longs[5][r] = world.getThirstDeaths();
+        b.longs[6][r] = world.getPredationDeaths();
+        b.longs[7][r] = world.getFoodStore().size();
+        b.longs[8][r] = world.getWaterStore().size();
+        b.longs[9][r] = world.getEnemies().size();
+        if (b.isFull()) {
+            tickBatch = submit(b, tickPool);
+        }
+    }
+
+    // Called once the generation counter has advanced; the row describes the generation that ended
+    void recordGeneration(World world) {
+        TelemetryBatch b = generationBatch;
+        int r = b.rows++;
+        b.longs[0][r] = world.getGeneration() - 1;
+        b.longs[1][r] = tick;
+        b.longs[2][r] = world.getCreatureStore().size();
+        b.longs[3][r] = births;
+        b.longs[4][r] = starved;
+        b.longs[5][r] = dehydrated;
+        b.longs[6][r] = predated;
+        births = 0;
+        starved = 0;
+        dehydrated = 0;
+        predated = 0;
+
+        PopulationStats stats = world.getStats();
+        int c = 7;
+        c = recordTrait(b, r, c, stats.getSpeed());
+        c = recordTrait(b, r, c, stats.getSize());
+        recordTrait(b, r, c, stats.getSense());
+        if (b.isFull()) {
+            generationBatch = submit(b, generationPool);
+        }
+    }
+
+    private static int recordTrait(TelemetryBatch b, int r, int c, Histogram h) {
+        b.doubles[c++][r] = h.getMean();
+        b.doubles[c++][r] = h.getPercentile(0.1);
+        b.doubles[c++][r] = h.getPercentile(0.5);
+        b.doubles[c++][r] = h.getPercentile(0.9);
+        for (int bin = 0; bin < h.getBinCount(); bin++) {
+            b.longs[c++][r] = h.getBin(bin);
+        }
+        return c;
+    }
+
+    // Hands a full batch to the writer thread and takes an empty one, waiting if all are in flight
+    private TelemetryBatch submit(TelemetryBatch batch, BlockingQueue<TelemetryBatch> pool) {
+        pending.add(batch);
+        try {
+            return pool.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the telemetry writer", e);
+        }
+    }
+
+    // Writes the partial batches, waits for the writer thread and closes the file
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (generationBatch.rows > 0) {
+            pending.add(generationBatch);
+        }
+        if (tickBatch.rows > 0) {
+            pending.add(tickBatch);
+        }
+        pending.add(new TelemetryBatch(ticks, 1));
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void writeLayout(TelemetryTable table) throws IOException {
+        out.writeByte(table.id);
+        out.writeUTF(table.name);
+        out.writeInt(table.columns.length);
+        for (int c = 0; c < table.columns.length; c++) {
+            out.writeUTF(table.columns[c]);
+            out.writeByte(table.types[c]);
+        }
+    }
+
+    private void writeLoop() {
+        Deflater deflater = new Deflater();
+        byte[][] raw = {new byte[1 << 16]};
+        byte[] compressed = new byte[1 << 16];
+        try {
+            while (true) {
+                TelemetryBatch batch = pending.take();
+                if (batch.rows == 0) {
+                    break;
+                }
+                // After a failure batches are only recycled, so the simulation never blocks on a dead writer
+                if (failure == null) {
+                    try {
+                        int length = batch.encode(raw);
+                        deflater.reset();
+                        deflater.setInput(raw[0], 0, length);
+                        deflater.finish();
+                        int compressedLength = 0;
+                        while (!deflater.finished()) {
+                            if (compressedLength == compressed.length) {
+                                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                            }
+                            compressedLength += deflater.deflate(compressed, compressedLength,
+                                    compressed.length - compressedLength);
+                        }
+                        out.writeByte(batch.table.id);
+                        out.writeInt(batch.rows);
+                        out.writeInt(length);
+                        out.writeInt(compressedLength);
+                        out.write(compressed, 0, compressedLength);
+                        out.flush();
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                batch.rows = 0;
+                (batch.table == ticks ? tickPool : generationPool).add(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -1,119 +1,370 @@
 package net.saturn;
 
-import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.stream.IntStream;
 
 public class Terrain {
+    private static final double HEIGHT_SCALE = 65535.0;
+    // Quantising and smoothing 16-bit heights moves a cell by at most one step from its exact
+    // smoothed height, so only cells this close to a biome boundary need the exact value
+    private static final int BOUNDARY_MARGIN = 2;
+    private static final double FREQUENCY = 0.01;
+    private static final int OCTAVES = 5;
+    private static final double PERSISTENCE = 0.5;
+    private static final int TILE_SIZE = 64;
+    public static final int DEFAULT_SMOOTHING_RADIUS = 1;
+    public static final int DEFAULT_CHUNK_SIZE = 128;
+    public static final int DEFAULT_MAX_CHUNKS = 2048;
+
+    // Biome id for every 16-bit height, replacing the linear scan in Biome.fromHeight
+    private static final byte[] BIOME_BY_HEIGHT = new byte[65536];
+    // Heights whose biome might differ from the one their exact, unquantised height falls in
+    private static final boolean[] NEAR_BOUNDARY = new boolean[65536];
+
+    static {
+        for (int h = 0; h < BIOME_BY_HEIGHT.length; h++) {
+            BIOME_BY_HEIGHT[h] = (byte) Biome.fromHeight(h / HEIGHT_SCALE).ordinal();
+        }
+        for (int h = 0; h < BIOME_BY_HEIGHT.length; h++) {
+            int lo = Math.max(0, h - BOUNDARY_MARGIN);
+            int hi = Math.min(BIOME_BY_HEIGHT.length - 1, h + BOUNDARY_MARGIN);
+            NEAR_BOUNDARY[h] = BIOME_BY_HEIGHT[lo] != BIOME_BY_HEIGHT[hi];
+        }
+    }
+
     private final int width;
     private final int height;
-    private final double[][] heightMap;
-    private final Biome[][] biomeMap;
-    private final BufferedImage terrainImage;
+    private final long seed;
+    private final int smoothingRadius;
+    // Row-major packed layers: 16-bit unsigned heights and one biome id byte per cell.
+    // Both are null in chunked mode, where cells live in the chunk cache instead.
+    private final short[] heights;
+    private final byte[] biomes;
+    private final TerrainChunkCache chunks;
+    private BufferedImage terrainImage;
 
     public Terrain(int width, int height, long seed) {
+        this(width, height, seed, DEFAULT_SMOOTHING_RADIUS);
+    }
+
+    public Terrain(int width, int height, long seed, int smoothingRadius) {
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+        this.smoothingRadius = smoothingRadius;
+        this.heights = new short[width * height];
+        this.biomes = new byte[width * height];
+        this.chunks = null;
+
+        generateTerrain(seed, new TerrainSmoother(smoothingRadius));
+    }
+
+    private Terrain(int width, int height, long seed, int smoothingRadius, TerrainChunkCache chunks) {
         this.width = width;
         this.height = height;
-        this.heightMap = new double[width][height];
-        this.biomeMap = new Biome[width][height];
-        this.terrainImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.seed = seed;
+        this.smoothingRadius = smoothingRadius;
+        this.heights = null;
+        this.biomes = null;
+        this.chunks = chunks;
+    }
+
+    // Terrain that generates chunks on first lookup and keeps at most maxChunks of them, so memory
+    // no longer grows with world area. Lookups return exactly what the eager constructor would.
+    public static Terrain chunked(int width, int height, long seed) {
+        return chunked(width, height, seed, DEFAULT_SMOOTHING_RADIUS, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_CHUNKS);
+    }
 
-        generateTerrain(seed);
+    public static Terrain chunked(int width, int height, long seed, int smoothingRadius,
+                                  int chunkSize, int maxChunks) {
+        if (smoothingRadius < 0) {
+            throw new IllegalArgumentException("Smoothing radius must not be negative: " + smoothingRadius);
+        }
+        return new Terrain(width, height, seed, smoothingRadius,
+                new TerrainChunkCache(width, height, seed, smoothingRadius, chunkSize, maxChunks));
     }
 
-    private void generateTerrain(long seed) {
+    private void generateTerrain(long seed, TerrainSmoother smoother) {
         PerlinNoise noise = new PerlinNoise(seed);
 
+        // Every cell depends only on its own coordinates, so tiles can be filled in any order
+        int tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        IntStream.range(0, tilesX * tilesY).parallel().forEach(tile -> {
+            int x0 = (tile % tilesX) * TILE_SIZE;
+            int y0 = (tile / tilesX) * TILE_SIZE;
+            generateHeights(noise, heights, width, 0, 0,
+                    x0, y0, Math.min(x0 + TILE_SIZE, width), Math.min(y0 + TILE_SIZE, height));
+        });
+
+        // Apply smoothing for better transitions
+        smoother.smooth(heights, width, height);
+
+        IntStream.range(0, height).parallel().forEach(y -> {
+            for (int x = 0, i = y * width; x < width; x++, i++) {
+                biomes[i] = biomeIdAt(noise, heights[i], x, y, width, height, smoother.getRadius());
+            }
+        });
+    }
+
+    // Fills world cells [x0, x1) x [y0, y1) into a buffer whose cell (0, 0) is world (originX, originY)
+    static void generateHeights(PerlinNoise noise, short[] out, int stride, int originX, int originY,
+                                int x0, int y0, int x1, int y1) {
+        int count = x1 - x0;
+        double[] row = new double[count];
+        double[] scratch = new double[count];
+
         // Generate height map using multiple octaves of Perlin noise
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                double frequency = 0.01;
-                double amplitude = 1.0;
-                double value = 0;
-                double maxValue = 0;
-
-                // Multiple octaves for more detail
-                for (int octave = 0; octave < 5; octave++) {
-                    value += noise.noise(x * frequency, y * frequency) * amplitude;
-                    maxValue += amplitude;
-
-                    frequency *= 2.0;
-                    amplitude *= 0.5;
-                }
-
-                heightMap[x][y] = value / maxValue;
-                biomeMap[x][y] = Biome.fromHeight(heightMap[x][y]);
+        for (int y = y0; y < y1; y++) {
+            noise.fbmRow(x0, y, FREQUENCY, OCTAVES, PERSISTENCE, row, scratch, count);
+            int offset = (y - originY) * stride + (x0 - originX);
+            for (int i = 0; i < count; i++) {
+                out[offset + i] = encodeHeight(row[i]);
             }
         }
+    }
 
-        // Apply smoothing for better transitions
-        smoothTerrain();
-
-        // Generate terrain image
-        Graphics2D graphics = terrainImage.createGraphics();
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                Biome biome = biomeMap[x][y];
-                Color baseColor = biome.getColor();
-
-                // Add slight variation to color
-                int variation = (int) ((heightMap[x][y] * 20) - 10);
-                int r = Math.max(0, Math.min(255, baseColor.getRed() + variation));
-                int g = Math.max(0, Math.min(255, baseColor.getGreen() + variation));
-                int b = Math.max(0, Math.min(255, baseColor.getBlue() + variation));
-
-                graphics.setColor(new Color(r, g, b));
-                graphics.fillRect(x, y, 1, 1);
+    static byte biomeIdForHeight(short height) {
+        return BIOME_BY_HEIGHT[height & 0xFFFF];
+    }
+
+    // Biome of world cell (x, y) given its stored, smoothed height. Biomes are decided on the exact
+    // height, as if it had never been quantised, so cells near a boundary recompute their window.
+    static byte biomeIdAt(PerlinNoise noise, short smoothed, int x, int y,
+                          int worldWidth, int worldHeight, int radius) {
+        if (!NEAR_BOUNDARY[smoothed & 0xFFFF]) {
+            return biomeIdForHeight(smoothed);
+        }
+        int window = 2 * radius + 1;
+        boolean smoothedCell = radius > 0 && worldWidth >= window && worldHeight >= window
+                && x >= radius && x < worldWidth - radius && y >= radius && y < worldHeight - radius;
+        if (!smoothedCell) {
+            return (byte) Biome.fromHeight(exactHeights(noise, x, y, 1, 1)[0]).ordinal();
+        }
+
+        // Sum column by column, the order the double-precision smoothing pass used
+        double[] heights = exactHeights(noise, x - radius, y - radius, window, window);
+        double sum = 0;
+        for (int dx = 0; dx < window; dx++) {
+            for (int dy = 0; dy < window; dy++) {
+                sum += heights[dy * window + dx];
             }
         }
-        graphics.dispose();
+        return (byte) Biome.fromHeight(sum / (window * window)).ordinal();
     }
 
-    private void smoothTerrain() {
-        double[][] smoothed = new double[width][height];
+    // Unquantised heights of a w x h block at (x0, y0), row-major
+    private static double[] exactHeights(PerlinNoise noise, int x0, int y0, int w, int h) {
+        double[] out = new double[w * h];
+        double[] row = new double[w];
+        double[] scratch = new double[w];
+        for (int y = 0; y < h; y++) {
+            noise.fbmRow(x0, y0 + y, FREQUENCY, OCTAVES, PERSISTENCE, row, scratch, w);
+            System.arraycopy(row, 0, out, y * w, w);
+        }
+        return out;
+    }
 
-        for (int x = 1; x < width - 1; x++) {
-            for (int y = 1; y < height - 1; y++) {
-                double sum = 0;
-                int count = 0;
+    // Biome colour with a slight height-based variation
+    static int shade(int biomeId, short height) {
+        int baseColor = Biome.fromId(biomeId).getRgb();
+        int variation = (int) ((decodeHeight(height) * 20) - 10);
+        int r = Math.max(0, Math.min(255, ((baseColor >> 16) & 0xFF) + variation));
+        int g = Math.max(0, Math.min(255, ((baseColor >> 8) & 0xFF) + variation));
+        int b = Math.max(0, Math.min(255, (baseColor & 0xFF) + variation));
+        return (r << 16) | (g << 8) | b;
+    }
 
-                for (int dx = -1; dx <= 1; dx++) {
-                    for (int dy = -1; dy <= 1; dy++) {
-                        sum += heightMap[x + dx][y + dy];
-                        count++;
-                    }
-                }
+    private BufferedImage renderImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
 
-                smoothed[x][y] = sum / count;
+        IntStream.range(0, height).parallel().forEach(y -> {
+            for (int i = y * width, end = i + width; i < end; i++) {
+                pixels[i] = shade(biomes[i], heights[i]);
             }
-        }
+        });
+        return image;
+    }
 
-        // Copy smoothed values back
-        for (int x = 1; x < width - 1; x++) {
-            for (int y = 1; y < height - 1; y++) {
-                heightMap[x][y] = smoothed[x][y];
-                biomeMap[x][y] = Biome.fromHeight(heightMap[x][y]);
-            }
+    static short encodeHeight(double value) {
+        return (short) Math.round(Math.max(0, Math.min(1, value)) * HEIGHT_SCALE);
+    }
+
+    static double decodeHeight(short value) {
+        return (value & 0xFFFF) / HEIGHT_SCALE;
+    }
+
+    public boolean isChunked() {
+        return chunks != null;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getSmoothingRadius() {
+        return smoothingRadius;
+    }
+
+    // Chunk cache geometry, or 0 for eager terrain
+    int getChunkSize() {
+        return chunks == null ? 0 : chunks.getChunkSize();
+    }
+
+    int getMaxChunks() {
+        return chunks == null ? 0 : chunks.getMaxChunks();
+    }
+
+    // FNV-1a over the eager height map, so a checkpoint can tell if terrain generation has changed
+    // since it was written. Chunked terrain is never fully materialised and reports 0.
+    long heightFingerprint() {
+        if (chunks != null) {
+            return 0;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (short h : heights) {
+            hash = (hash ^ (h & 0xFFFF)) * 0x100000001b3L;
         }
+        return hash;
     }
 
     public Biome getBiomeAt(int x, int y) {
+        return Biome.fromId(getBiomeIdAt(x, y));
+    }
+
+    public int getBiomeIdAt(int x, int y) {
         if (x < 0 || x >= width || y < 0 || y >= height) {
-            return Biome.WATER;
+            return Biome.WATER.ordinal();
+        }
+        return biomeIdAt(x, y);
+    }
+
+    // Hot-path lookups for positions already clamped to the map, so they skip the bounds check
+    public double getSpeedModifierAt(int x, int y) {
+        return Biome.SPEED_MODIFIER[biomeIdAt(x, y)];
+    }
+
+    private int biomeIdAt(int x, int y) {
+        if (chunks == null) {
+            return biomes[y * width + x];
+        }
+        TerrainChunkCache.Chunk chunk = chunks.chunkAt(x, y);
+        return chunk.biomes[chunk.index(x, y)];
+    }
+
+    public boolean isWalkable(int x, int y) {
+        return Biome.WALKABLE[getBiomeIdAt(x, y)];
+    }
+
+    // Nothing may step from walkable ground onto water, but anything already stranded in it may
+    // always move, so it can wade out
+    public boolean canEnter(int fromX, int fromY, int toX, int toY) {
+        return isWalkable(toX, toY) || !isWalkable(fromX, fromY);
+    }
+
+    // Follows the straight step from (x0, y0) to (x1, y1) a cell at a time and returns the last cell
+    // it reaches, packed as x << 32 | y. Water stops it, and so does slipping diagonally between two
+    // water cells that only touch at a corner.
+    long walkableStep(int x0, int y0, int x1, int y1) {
+        int steps = Math.max(Math.abs(x1 - x0), Math.abs(y1 - y0));
+        int x = x0;
+        int y = y0;
+        for (int k = 1; k <= steps; k++) {
+            int nx = x0 + (x1 - x0) * k / steps;
+            int ny = y0 + (y1 - y0) * k / steps;
+            if (!canEnter(x, y, nx, ny)
+                    || (nx != x && ny != y && !canEnter(x, y, nx, y) && !canEnter(x, y, x, ny))) {
+                break;
+            }
+            x = nx;
+            y = ny;
+        }
+        return ((long) x << 32) | y;
+    }
+
+    // Moves like walkableStep and reports the axes water blocked, for movers that bounce off the
+    // shore; both when the step was stopped at a corner and neither single axis is blocked. Packed
+    // as x << 33 | y << 2 | blocked; read with stepX, stepY, blockedX and blockedY.
+    long shoreStep(int x0, int y0, int x1, int y1) {
+        long reached = walkableStep(x0, y0, x1, y1);
+        int x = (int) (reached >>> 32);
+        int y = (int) reached;
+        int blocked = 0;
+        if (x != x1 || y != y1) {
+            boolean alongX = x != x1 && !canEnter(x, y, x + Integer.signum(x1 - x), y);
+            boolean alongY = y != y1 && !canEnter(x, y, x, y + Integer.signum(y1 - y));
+            blocked = (alongX || !alongY ? 1 : 0) | (alongY || !alongX ? 2 : 0);
         }
-        return biomeMap[x][y];
+        return ((long) x << 33) | ((long) y << 2) | blocked;
+    }
+
+    static int stepX(long step) {
+        return (int) (step >>> 33);
+    }
+
+    static int stepY(long step) {
+        return (int) (step >>> 2) & Integer.MAX_VALUE;
+    }
+
+    static boolean blockedX(long step) {
+        return (step & 1) != 0;
+    }
+
+    static boolean blockedY(long step) {
+        return (step & 2) != 0;
+    }
+
+    public int getFoodSpawnRateAt(int x, int y) {
+        return Biome.FOOD_SPAWN_RATE[getBiomeIdAt(x, y)];
+    }
+
+    public int getWaterSpawnRateAt(int x, int y) {
+        return Biome.WATER_SPAWN_RATE[getBiomeIdAt(x, y)];
     }
 
     public double getHeightAt(int x, int y) {
         if (x < 0 || x >= width || y < 0 || y >= height) {
             return 0;
         }
-        return heightMap[x][y];
+        if (chunks == null) {
+            return decodeHeight(heights[y * width + x]);
+        }
+        TerrainChunkCache.Chunk chunk = chunks.chunkAt(x, y);
+        return decodeHeight(chunk.heights[chunk.index(x, y)]);
     }
 
+    // Packed RGB of a single cell, for callers that cannot hold a whole-map image
+    public int getColorAt(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return shade(Biome.WATER.ordinal(), (short) 0);
+        }
+        if (chunks == null) {
+            int i = y * width + x;
+            return shade(biomes[i], heights[i]);
+        }
+        TerrainChunkCache.Chunk chunk = chunks.chunkAt(x, y);
+        int i = chunk.index(x, y);
+        return shade(chunk.biomes[i], chunk.heights[i]);
+    }
+
+    // Rendered on first use so headless runs never touch AWT
     public BufferedImage getTerrainImage() {
+        if (chunks != null) {
+            throw new UnsupportedOperationException("Chunked terrain has no whole-map image; use getColorAt");
+        }
+        if (terrainImage == null) {
+            terrainImage = renderImage();
+        }
         return terrainImage;
     }
 
+    // Packed RGB pixels of the terrain image, row-major with the map's width
+    int[] getTerrainPixels() {
+        return ((DataBufferInt) getTerrainImage().getRaster().getDataBuffer()).getData();
+    }
+
     public int getWidth() {
         return width;
     }
@@ -121,4 +372,4 @@ public class Terrain {
     public int getHeight() {
         return height;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,156 @@
+package net.saturn;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Generates fixed-size terrain chunks on first touch and keeps a bounded set of them, evicting
+// with a clock hand: a hit only sets a flag, and a miss sweeps the ring for an unflagged chunk.
+// Chunks are pure functions of the seed, so an evicted chunk regenerates bit-identical to the
+// eager Terrain over the same cells.
+class TerrainChunkCache {
+    private final int worldWidth;
+    private final int worldHeight;
+    private final int chunkShift;
+    private final int chunkSize;
+    private final int maxChunks;
+    private final int smoothingRadius;
+    private final PerlinNoise noise;
+    private final Map<Long, Chunk> chunks = new ConcurrentHashMap<>();
+
+    // Last chunk handed out; chunks are immutable, so a stale read only costs a map lookup
+    private volatile Chunk lastChunk;
+    // Admitted chunks in admission order; guarded by the ring itself
+    private final Chunk[] ring;
+    private int ringSize;
+    private int hand;
+
+    static final class Chunk {
+        final long key;
+        final int originX;
+        final int originY;
+        final int width;
+        final short[] heights;
+        final byte[] biomes;
+        // Plain fields on purpose: a racing hit only blurs the eviction order, never correctness
+        boolean referenced;
+        boolean admitted;
+
+        Chunk(long key, int originX, int originY, int width, short[] heights, byte[] biomes) {
+            this.key = key;
+            this.originX = originX;
+            this.originY = originY;
+            this.width = width;
+            this.heights = heights;
+            this.biomes = biomes;
+        }
+
+        int index(int x, int y) {
+            return (y - originY) * width + (x - originX);
+        }
+    }
+
+    TerrainChunkCache(int worldWidth, int worldHeight, long seed, int smoothingRadius,
+                      int chunkSize, int maxChunks) {
+        if (Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("Chunk size must be a power of two: " + chunkSize);
+        }
+        if (maxChunks < 1) {
+            throw new IllegalArgumentException("Chunk cache must hold at least one chunk: " + maxChunks);
+        }
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        this.chunkSize = chunkSize;
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+        this.maxChunks = maxChunks;
+        this.ring = new Chunk[maxChunks];
+        this.smoothingRadius = smoothingRadius;
+        this.noise = new PerlinNoise(seed);
+    }
+
+    // Coordinates must lie inside the world
+    Chunk chunkAt(int x, int y) {
+        long key = ((long) (x >>> chunkShift) << 32) | (y >>> chunkShift);
+        Chunk chunk = lastChunk;
+        if (chunk != null && chunk.key == key) {
+            return chunk;
+        }
+
+        chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = chunks.computeIfAbsent(key, this::generate);
+            admit(chunk);
+        }
+        chunk.referenced = true;
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    int size() {
+        return chunks.size();
+    }
+
+    int getChunkSize() {
+        return chunkSize;
+    }
+
+    int getMaxChunks() {
+        return maxChunks;
+    }
+
+    // Gives a new chunk a ring slot, evicting the first chunk the hand finds unreferenced since its
+    // last pass. Each pass clears at most one flag per slot, so a miss costs O(1) amortised.
+    private void admit(Chunk chunk) {
+        synchronized (ring) {
+            if (chunk.admitted) {
+                return;
+            }
+            chunk.admitted = true;
+            if (ringSize < maxChunks) {
+                ring[ringSize++] = chunk;
+                return;
+            }
+            while (ring[hand].referenced) {
+                ring[hand].referenced = false;
+                hand = hand + 1 == maxChunks ? 0 : hand + 1;
+            }
+            Chunk victim = ring[hand];
+            chunks.remove(victim.key, victim);
+            ring[hand] = chunk;
+            hand = hand + 1 == maxChunks ? 0 : hand + 1;
+        }
+    }
+
+    private Chunk generate(long key) {
+        int x0 = (int) (key >>> 32) << chunkShift;
+        int y0 = (int) key << chunkShift;
+        int x1 = Math.min(x0 + chunkSize, worldWidth);
+        int y1 = Math.min(y0 + chunkSize, worldHeight);
+
+        // Generate with an apron of raw neighbours so smoothing sees the same window as the eager
+        // map. The apron stops at the world edge, which leaves border cells unsmoothed there too.
+        int r = smoothingRadius;
+        int bx0 = Math.max(0, x0 - r);
+        int by0 = Math.max(0, y0 - r);
+        int bx1 = Math.min(worldWidth, x1 + r);
+        int by1 = Math.min(worldHeight, y1 + r);
+        int bufferWidth = bx1 - bx0;
+        short[] buffer = new short[bufferWidth * (by1 - by0)];
+
+        Terrain.generateHeights(noise, buffer, bufferWidth, bx0, by0, bx0, by0, bx1, by1);
+        new TerrainSmoother(r).smooth(buffer, bufferWidth, by1 - by0);
+
+        int width = x1 - x0;
+        short[] heights = new short[width * (y1 - y0)];
+        byte[] biomes = new byte[heights.length];
+        for (int y = y0; y < y1; y++) {
+            int from = (y - by0) * bufferWidth + (x0 - bx0);
+            int to = (y - y0) * width;
+            for (int x = 0; x < width; x++) {
+                heights[to + x] = buffer[from + x];
+                biomes[to + x] = Terrain.biomeIdAt(noise, buffer[from + x], x0 + x, y,
+                        worldWidth, worldHeight, r);
+            }
+        }
+        return new Chunk(key, x0, y0, width, heights, biomes);
+    }
+}
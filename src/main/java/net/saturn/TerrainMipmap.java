@@ -0,0 +1,138 @@
+package net.saturn;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+// Mipmap pyramid of the terrain image cut into fixed-size tiles. Level 0 is full resolution and
+// each further level halves both axes with a 2x2 box filter, so a zoomed-out frame blits a handful
+// of small tiles instead of scaling the whole map. Built once per Terrain.
+class TerrainMipmap {
+    static final int TILE_SIZE = 256;
+    // Coarsest level is the first one that fits in a single tile
+    private static final int MAX_LEVELS = 16;
+
+    private final Terrain terrain;
+    private final int width;
+    private final int height;
+    // tiles[level][tileY * tilesX + tileX]
+    private final BufferedImage[][] tiles;
+    private final int[] tilesAcross;
+
+    TerrainMipmap(Terrain terrain) {
+        this.terrain = terrain;
+        this.width = terrain.getWidth();
+        this.height = terrain.getHeight();
+
+        int levels = 1;
+        while (levels < MAX_LEVELS && Math.max(width >> (levels - 1), height >> (levels - 1)) > TILE_SIZE) {
+            levels++;
+        }
+        tiles = new BufferedImage[levels][];
+        tilesAcross = new int[levels];
+
+        int[] pixels = terrain.getTerrainPixels();
+        int levelWidth = width;
+        int levelHeight = height;
+        for (int level = 0; level < levels; level++) {
+            if (level > 0) {
+                int nextWidth = (levelWidth + 1) / 2;
+                int nextHeight = (levelHeight + 1) / 2;
+                pixels = downsample(pixels, levelWidth, levelHeight, nextWidth, nextHeight);
+                levelWidth = nextWidth;
+                levelHeight = nextHeight;
+            }
+            cutTiles(level, pixels, levelWidth, levelHeight);
+        }
+    }
+
+    Terrain getTerrain() {
+        return terrain;
+    }
+
+    int getLevels() {
+        return tiles.length;
+    }
+
+    // Finest level whose pixels are still at least one screen pixel wide at this zoom
+    int levelFor(double zoom) {
+        int level = 0;
+        while (level + 1 < tiles.length && zoom * (1 << (level + 1)) <= 1.0) {
+            level++;
+        }
+        return level;
+    }
+
+    // Draws the tiles of one level that intersect the world rectangle visible from (viewX, viewY)
+    void draw(Graphics2D g, double viewX, double viewY, double zoom, int screenWidth, int screenHeight) {
+        int level = levelFor(zoom);
+        int scale = 1 << level;
+        int across = tilesAcross[level];
+        int down = tiles[level].length / across;
+        double tileWorld = (double) TILE_SIZE * scale;
+
+        int firstX = Math.max(0, (int) Math.floor(viewX / tileWorld));
+        int firstY = Math.max(0, (int) Math.floor(viewY / tileWorld));
+        int lastX = Math.min(across - 1, (int) Math.floor((viewX + screenWidth / zoom) / tileWorld));
+        int lastY = Math.min(down - 1, (int) Math.floor((viewY + screenHeight / zoom) / tileWorld));
+
+        for (int ty = firstY; ty <= lastY; ty++) {
+            for (int tx = firstX; tx <= lastX; tx++) {
+                BufferedImage tile = tiles[level][ty * across + tx];
+                // Edges are rounded from world coordinates so neighbouring tiles meet without seams
+                double worldX = tx * tileWorld;
+                double worldY = ty * tileWorld;
+                int x0 = (int) Math.floor((worldX - viewX) * zoom);
+                int y0 = (int) Math.floor((worldY - viewY) * zoom);
+                int x1 = (int) Math.floor((worldX + (double) tile.getWidth() * scale - viewX) * zoom);
+                int y1 = (int) Math.floor((worldY + (double) tile.getHeight() * scale - viewY) * zoom);
+                g.drawImage(tile, x0, y0, x1, y1, 0, 0, tile.getWidth(), tile.getHeight(), null);
+            }
+        }
+    }
+
+    private void cutTiles(int level, int[] pixels, int levelWidth, int levelHeight) {
+        int across = (levelWidth + TILE_SIZE - 1) / TILE_SIZE;
+        int down = (levelHeight + TILE_SIZE - 1) / TILE_SIZE;
+        tilesAcross[level] = across;
+        tiles[level] = new BufferedImage[across * down];
+
+        for (int ty = 0; ty < down; ty++) {
+            for (int tx = 0; tx < across; tx++) {
+                int x0 = tx * TILE_SIZE;
+                int y0 = ty * TILE_SIZE;
+                int tileWidth = Math.min(TILE_SIZE, levelWidth - x0);
+                int tileHeight = Math.min(TILE_SIZE, levelHeight - y0);
+                BufferedImage tile = new BufferedImage(tileWidth, tileHeight, BufferedImage.TYPE_INT_RGB);
+                int[] out = ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+                for (int y = 0; y < tileHeight; y++) {
+                    System.arraycopy(pixels, (y0 + y) * levelWidth + x0, out, y * tileWidth, tileWidth);
+                }
+                tiles[level][ty * across + tx] = tile;
+            }
+        }
+    }
+
+    // 2x2 box filter; an odd last row or column averages with itself
+    private static int[] downsample(int[] pixels, int width, int height, int outWidth, int outHeight) {
+        int[] out = new int[outWidth * outHeight];
+        for (int y = 0; y < outHeight; y++) {
+            int row0 = 2 * y * width;
+            int row1 = Math.min(2 * y + 1, height - 1) * width;
+            for (int x = 0; x < outWidth; x++) {
+                int x0 = 2 * x;
+                int x1 = Math.min(2 * x + 1, width - 1);
+                out[y * outWidth + x] = average(pixels[row0 + x0], pixels[row0 + x1],
+                        pixels[row1 + x0], pixels[row1 + x1]);
+            }
+        }
+        return out;
+    }
+
+    private static int average(int a, int b, int c, int d) {
+        int r = (((a >> 16) & 0xFF) + ((b >> 16) & 0xFF) + ((c >> 16) & 0xFF) + ((d >> 16) & 0xFF) + 2) >> 2;
+        int g = (((a >> 8) & 0xFF) + ((b >> 8) & 0xFF) + ((c >> 8) & 0xFF) + ((d >> 8) & 0xFF) + 2) >> 2;
+        int bl = ((a & 0xFF) + (b & 0xFF) + (c & 0xFF) + (d & 0xFF) + 2) >> 2;
+        return (r << 16) | (g << 8) | bl;
+    }
+}
@@ -0,0 +1,77 @@
+package net.saturn;
+
+import java.util.Arrays;
+
+// Box blur over packed heights using separable running sums, so the cost per cell is the same
+// for any radius. Cells closer than the radius to an edge keep their original height.
+// Sums are exact integers over the 16-bit samples, so running totals never drift.
+class TerrainSmoother {
+    private final int radius;
+    // Horizontal window sums for the 2r+1 rows currently inside the vertical window
+    private long[][] rowSums = new long[0][];
+    private long[] columnSums = new long[0];
+
+    TerrainSmoother(int radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Smoothing radius must not be negative: " + radius);
+        }
+        this.radius = radius;
+    }
+
+    int getRadius() {
+        return radius;
+    }
+
+    void smooth(short[] heights, int width, int height) {
+        int window = 2 * radius + 1;
+        if (radius == 0 || width < window || height < window) {
+            return;
+        }
+        ensureScratch(width, window);
+
+        long area = (long) window * window;
+        Arrays.fill(columnSums, 0, width, 0);
+        for (int y = 0; y < window - 1; y++) {
+            addRow(heights, width, y, rowSums[y % window]);
+        }
+
+        for (int y = radius; y < height - radius; y++) {
+            // Rows above y are already smoothed, so the leaving row is taken from the ring, not the map
+            int entering = y + radius;
+            addRow(heights, width, entering, rowSums[entering % window]);
+
+            int offset = y * width;
+            for (int x = radius; x < width - radius; x++) {
+                heights[offset + x] = (short) ((columnSums[x] + area / 2) / area);
+            }
+
+            long[] leaving = rowSums[(y - radius) % window];
+            for (int x = radius; x < width - radius; x++) {
+                columnSums[x] -= leaving[x];
+            }
+        }
+    }
+
+    private void addRow(short[] heights, int width, int y, long[] sums) {
+        int offset = y * width;
+        long running = 0;
+        for (int x = 0; x < 2 * radius; x++) {
+            running += heights[offset + x] & 0xFFFF;
+        }
+        for (int x = radius; x < width - radius; x++) {
+            running += heights[offset + x + radius] & 0xFFFF;
+            sums[x] = running;
+            columnSums[x] += running;
+            running -= heights[offset + x - radius] & 0xFFFF;
+        }
+    }
+
+    private void ensureScratch(int width, int window) {
+        if (rowSums.length != window || rowSums[0].length < width) {
+            rowSums = new long[window][width];
+        }
+        if (columnSums.length < width) {
+            columnSums = new long[width];
+        }
+    }
+}
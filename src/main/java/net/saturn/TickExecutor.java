@@ -0,0 +1,64 @@
+package net.saturn;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Runs per-entity phases either inline or split across a fork-join pool.
+// Phases must only write to the rows they are given, so the split never changes results.
+class TickExecutor {
+    private static final int MIN_CHUNK = 1024;
+
+    interface RangeBody {
+        void run(int from, int to);
+    }
+
+    private final int threads;
+    private final ForkJoinPool pool;
+
+    TickExecutor(int threads) {
+        this.threads = Math.max(1, threads);
+        this.pool = this.threads > 1 ? new ForkJoinPool(this.threads) : null;
+    }
+
+    void forEach(int count, RangeBody body) {
+        if (pool == null || count <= MIN_CHUNK) {
+            body.run(0, count);
+        } else {
+            pool.invoke(new RangeTask(body, 0, count));
+        }
+    }
+
+    int getThreads() {
+        return threads;
+    }
+
+    void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeBody body;
+        private final int from;
+        private final int to;
+
+        RangeTask(RangeBody body, int from, int to) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MIN_CHUNK) {
+                body.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(body, from, mid), new RangeTask(body, mid, to));
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package net.saturn;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Per-phase timing of World.update(). Every call site is guarded by ENABLED, a static final the
+// JIT folds to a constant, so with profiling off the guarded code is removed entirely and no
+// profiler is created. Turn it on with -Devolution.profile=true.
+//
+// Phase laps are kept in plain fields on the simulation thread and folded into the histograms
+// once per tick under the lock, so JMX and snapshot readers always see whole ticks.
+public class TickProfiler implements TickProfilerMXBean {
+    static final boolean ENABLED = Boolean.getBoolean("evolution.profile");
+    private static final String OBJECT_NAME = "net.saturn:type=TickProfiler";
+    private static TickProfiler registered; // guarded by TickProfiler.class
+
+    enum Phase {
+        MOVE_CREATURES("move creatures"),
+        MOVE_ENEMIES("move enemies"),
+        FORAGE("forage"),
+        DRINK("drink"),
+        PREDATION("predation"),
+        METABOLISM("metabolism"),
+        CLEANUP("cleanup"),
+        REPRODUCTION("reproduction"),
+        SPAWN("spawn"),
+        TELEMETRY("telemetry");
+
+        static final Phase[] ALL = values();
+
+        final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    // What the GUI overlay shows, copied into each RenderSnapshot; the last slot is the whole tick
+    static final class Summary {
+        final double[] lastMicros = new double[Phase.ALL.length + 1];
+        final double[] meanMicros = new double[Phase.ALL.length + 1];
+        final double[] p99Micros = new double[Phase.ALL.length + 1];
+        long ticks;
+        long lastQueries;
+        long lastRemoved;
+        long lastBirths;
+        long lastSpawned;
+    }
+
+    private final LatencyHistogram[] phases = new LatencyHistogram[Phase.ALL.length];
+    private final LatencyHistogram total = new LatencyHistogram();
+
+    // Current tick, simulation thread only; queries also arrive from tick workers
+    private final long[] laps = new long[Phase.ALL.length];
+    private final AtomicLong queries = new AtomicLong();
+    private long tickStart;
+    private long lapStart;
+    private long removed;
+    private long births;
+    private long spawned;
+
+    // Guarded by this
+    private final long[] lastLaps = new long[Phase.ALL.length];
+    private long lastTotal;
+    private long lastQueries;
+    private long lastRemoved;
+    private long lastBirths;
+    private long lastSpawned;
+    private long ticks;
+    private long totalQueries;
+    private long totalRemoved;
+    private long totalBirths;
+    private long totalSpawned;
+
+    TickProfiler() {
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+    }
+
+    void begin() {
+        tickStart = System.nanoTime();
+        lapStart = tickStart;
+    }
+
+    // Charges the time since the previous lap, or since begin(), to phase
+    void lap(Phase phase) {
+        long now = System.nanoTime();
+        laps[phase.ordinal()] += now - lapStart;
+        lapStart = now;
+    }
+
+    void addQueries(long count) {
+        queries.addAndGet(count);
+    }
+
+    void addRemoved(long count) {
+        removed += count;
+    }
+
+    void addBirths(long count) {
+        births += count;
+    }
+
+    void addSpawned(long count) {
+        spawned += count;
+    }
+
+    synchronized void endTick() {
+        long elapsed = lapStart - tickStart;
+        for (int i = 0; i < laps.length; i++) {
+            phases[i].record(laps[i]);
+            lastLaps[i] = laps[i];
+            laps[i] = 0;
+        }
+        total.record(elapsed);
+        lastTotal = elapsed;
+        lastQueries = queries.getAndSet(0);
+        lastRemoved = removed;
+        lastBirths = births;
+        lastSpawned = spawned;
+        totalQueries += lastQueries;
+        totalRemoved += removed;
+        totalBirths += births;
+        totalSpawned += spawned;
+        removed = 0;
+        births = 0;
+        spawned = 0;
+        ticks++;
+    }
+
+    synchronized void copyTo(Summary summary) {
+        int n = Phase.ALL.length;
+        for (int i = 0; i <= n; i++) {
+            LatencyHistogram h = i < n ? phases[i] : total;
+            summary.lastMicros[i] = (i < n ? lastLaps[i] : lastTotal) / 1e3;
+            summary.meanMicros[i] = h.getMean() / 1e3;
+            summary.p99Micros[i] = h.getPercentile(0.99) / 1e3;
+        }
+        summary.ticks = ticks;
+        summary.lastQueries = lastQueries;
+        summary.lastRemoved = lastRemoved;
+        summary.lastBirths = lastBirths;
+        summary.lastSpawned = lastSpawned;
+    }
+
+    // Replaces any profiler registered by an earlier world, so the bean always shows the live one
+    void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            synchronized (TickProfiler.class) {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(this, name);
+                registered = this;
+            }
+        } catch (JMException e) {
+            System.err.println("Could not register tick profiler: " + e.getMessage());
+        }
+    }
+
+    // Leaves the bean alone if a newer world has taken the name over
+    void unregister() {
+        try {
+            synchronized (TickProfiler.class) {
+                if (registered == this) {
+                    ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+                    registered = null;
+                }
+            }
+        } catch (JMException e) {
+            System.err.println("Could not unregister tick profiler: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String[] getPhases() {
+        String[] names = new String[Phase.ALL.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = Phase.ALL[i].label;
+        }
+        return names;
+    }
+
+    @Override
+    public synchronized long getTicks() {
+        return ticks;
+    }
+
+    @Override
+    public synchronized double getMeanMicros(String phase) {
+        return histogram(phase).getMean() / 1e3;
+    }
+
+    @Override
+    public synchronized double getPercentileMicros(String phase, double percentile) {
+        return histogram(phase).getPercentile(percentile / 100) / 1e3;
+    }
+
+    @Override
+    public synchronized double getMaxMicros(String phase) {
+        return histogram(phase).getMax() / 1e3;
+    }
+
+    @Override
+    public synchronized double getQueriesPerTick() {
+        return ticks == 0 ? 0 : (double) totalQueries / ticks;
+    }
+
+    @Override
+    public synchronized double getRemovedPerTick() {
+        return ticks == 0 ? 0 : (double) totalRemoved / ticks;
+    }
+
+    @Override
+    public synchronized double getBirthsPerTick() {
+        return ticks == 0 ? 0 : (double) totalBirths / ticks;
+    }
+
+    @Override
+    public synchronized double getSpawnedPerTick() {
+        return ticks == 0 ? 0 : (double) totalSpawned / ticks;
+    }
+
+    @Override
+    public synchronized String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "%-15s %10s %10s %10s %10s%n", "phase", "mean us", "p50 us", "p99 us", "max us"));
+        for (Phase phase : Phase.ALL) {
+            appendRow(report, phase.label, phases[phase.ordinal()]);
+        }
+        appendRow(report, "tick", total);
+        report.append(String.format(Locale.ROOT, "ticks=%d queries/tick=%.1f removed/tick=%.2f births/tick=%.2f spawned/tick=%.2f%n",
+                ticks, getQueriesPerTick(), getRemovedPerTick(), getBirthsPerTick(), getSpawnedPerTick()));
+        return report.toString();
+    }
+
+    private static void appendRow(StringBuilder report, String label, LatencyHistogram h) {
+        report.append(String.format(Locale.ROOT, "%-15s %10.1f %10.1f %10.1f %10.1f%n", label,
+                h.getMean() / 1e3, h.getPercentile(0.5) / 1e3, h.getPercentile(0.99) / 1e3, h.getMax() / 1e3));
+    }
+
+    @Override
+    public synchronized void reset() {
+        for (LatencyHistogram h : phases) {
+            h.reset();
+        }
+        total.reset();
+        ticks = 0;
+        totalQueries = 0;
+        totalRemoved = 0;
+        totalBirths = 0;
+        totalSpawned = 0;
+    }
+
+    private LatencyHistogram histogram(String phase) {
+        if (phase.equals("tick")) {
+            return total;
+        }
+        for (Phase p : Phase.ALL) {
+            if (p.label.equals(phase)) {
+                return phases[p.ordinal()];
+            }
+        }
+        throw new IllegalArgumentException("Unknown phase " + phase + "; expected tick or one of getPhases()");
+    }
+}
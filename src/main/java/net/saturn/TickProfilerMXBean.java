@@ -0,0 +1,27 @@
+package net.saturn;
+
+// JMX view of a TickProfiler, registered as net.saturn:type=TickProfiler while profiling is on.
+// Durations are in microseconds; phase names are those listed by getPhases().
+public interface TickProfilerMXBean {
+    String[] getPhases();
+
+    long getTicks();
+
+    double getMeanMicros(String phase);
+
+    double getPercentileMicros(String phase, double percentile);
+
+    double getMaxMicros(String phase);
+
+    double getQueriesPerTick();
+
+    double getRemovedPerTick();
+
+    double getBirthsPerTick();
+
+    double getSpawnedPerTick();
+
+    String getReport();
+
+    void reset();
+}
@@ -0,0 +1,106 @@
+package net.saturn;
+
+// Fixed-capacity series of min/max/mean buckets over primitive arrays. When every bucket is in use,
+// neighbouring pairs merge and each bucket covers twice as many samples, so the series always spans
+// the whole run in constant memory and readers touch at most capacity buckets.
+class TimeSeries {
+    private final double[] min;
+    private final double[] max;
+    private final double[] sum;
+    private final int[] counts;
+    private int size;
+    private int samplesPerBucket = 1;
+    private long samples;
+    private double last;
+
+    TimeSeries(int capacity) {
+        if (capacity < 2 || capacity % 2 != 0) {
+            throw new IllegalArgumentException("Capacity must be even and at least 2: " + capacity);
+        }
+        min = new double[capacity];
+        max = new double[capacity];
+        sum = new double[capacity];
+        counts = new int[capacity];
+    }
+
+    void add(double value) {
+        samples++;
+        last = value;
+        int tail = size - 1;
+        if (size > 0 && counts[tail] < samplesPerBucket) {
+            min[tail] = Math.min(min[tail], value);
+            max[tail] = Math.max(max[tail], value);
+            sum[tail] += value;
+            counts[tail]++;
+            return;
+        }
+
+        if (size == counts.length) {
+            decimate();
+        }
+        min[size] = value;
+        max[size] = value;
+        sum[size] = value;
+        counts[size] = 1;
+        size++;
+    }
+
+    private void decimate() {
+        int half = size / 2;
+        for (int i = 0; i < half; i++) {
+            int a = 2 * i;
+            int b = a + 1;
+            min[i] = Math.min(min[a], min[b]);
+            max[i] = Math.max(max[a], max[b]);
+            sum[i] = sum[a] + sum[b];
+            counts[i] = counts[a] + counts[b];
+        }
+        size = half;
+        samplesPerBucket *= 2;
+    }
+
+    // Both series must have the same capacity
+    void copyFrom(TimeSeries other) {
+        System.arraycopy(other.min, 0, min, 0, other.size);
+        System.arraycopy(other.max, 0, max, 0, other.size);
+        System.arraycopy(other.sum, 0, sum, 0, other.size);
+        System.arraycopy(other.counts, 0, counts, 0, other.size);
+        size = other.size;
+        samplesPerBucket = other.samplesPerBucket;
+        samples = other.samples;
+        last = other.last;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return counts.length;
+    }
+
+    long getSampleCount() {
+        return samples;
+    }
+
+    // Most recent sample, before any averaging
+    double getLast() {
+        return last;
+    }
+
+    int getSamplesPerBucket() {
+        return samplesPerBucket;
+    }
+
+    double getMin(int bucket) {
+        return min[bucket];
+    }
+
+    double getMax(int bucket) {
+        return max[bucket];
+    }
+
+    double getMean(int bucket) {
+        return sum[bucket] / counts[bucket];
+    }
+}
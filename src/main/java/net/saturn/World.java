@@ -1,47 +1,88 @@
 package net.saturn;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
 
 public class World {
+    private static final int GRID_CELL_SIZE = 32;
+    private static final double ENEMY_CHASE_RANGE = 150;
+    // Creatures sense resources out to 20 units per point of sense, and sense is at most 10
+    private static final double SENSE_RANGE_PER_POINT = 20;
+    private static final double MAX_SENSE_RANGE = 10 * SENSE_RANGE_PER_POINT;
+    private static final int WATER_FIELD_CELL = 4;
+    // World, terrain and count fields written ahead of the entity columns by writeState
+    private static final int STATE_HEADER_BYTES = 12 * Integer.BYTES + 5 * Long.BYTES;
+
     private final int width;
     private final int height;
     private final Terrain terrain;
-    private List<Creature> creatures;
-    private List<Food> food;
-    private List<Water> water;
+    // Null for chunked terrain, which falls back to rejection sampling
+    private final SpawnSampler spawns;
+    private final CreatureStore creatures;
+    private final EntityHandles creatureHandles = new EntityHandles();
+    private final PopulationStats stats = new PopulationStats();
+    private final ResourceStore food;
+    private final ResourceStore water;
+    private final List<Food> foodView;
+    private final List<Water> waterView;
     private List<Enemy> enemies;
+    private final SpatialGrid creatureGrid;
+    private final SpatialGrid foodGrid;
+    private final SpatialGrid waterGrid;
+    // Water is never consumed, so its nearest-source field only ever grows; null for chunked terrain
+    private final ResourceField waterField;
+    // Routes around water; null for chunked terrain, where agents steer straight at their targets
+    private final Pathfinder paths;
     private int generation;
     private int ticksSinceReproduction;
-    private Random rand;
+    private final long seed;
+    private final Rng rand;
+    private final Rng entitySeeds;
+    private long[] selectionKeys = new long[0];
+    private int[] foodClaims = new int[0];
+    private int[] consumedFood = new int[0];
+    private TickExecutor executor = new TickExecutor(1);
+    private TelemetryWriter telemetry;
+    private final TickProfiler profiler = TickProfiler.ENABLED ? new TickProfiler() : null;
+    // Births and deaths by cause during the last update; extinction recovery spawns count as births
+    private int births;
+    private int starved;
+    private int dehydrated;
+    private int predated;
+
+    private final TickExecutor.RangeBody moveCreatures = this::moveCreatures;
+    private final TickExecutor.RangeBody moveEnemies = this::moveEnemies;
+    private final TickExecutor.RangeBody claimFood = this::claimFood;
+    private final TickExecutor.RangeBody drinkWater = this::drinkWater;
+    private final TickExecutor.RangeBody metabolize = this::metabolize;
 
     public World(int width, int height, int initialPopulation) {
-        this.width = width;
-        this.height = height;
-        this.terrain = new Terrain(width, height, System.currentTimeMillis());
-        this.creatures = new ArrayList<>();
-        this.food = new ArrayList<>();
-        this.water = new ArrayList<>();
-        this.enemies = new ArrayList<>();
-        this.generation = 1;
-        this.ticksSinceReproduction = 0;
-        this.rand = new Random();
+        this(width, height, initialPopulation, System.nanoTime());
+    }
+
+    public World(int width, int height, int initialPopulation, long seed) {
+        this(width, height, initialPopulation, seed, false);
+    }
+
+    // Chunked terrain is generated lazily around whatever the simulation touches, for worlds too
+    // large to hold as a full map. It yields the same cells as eager terrain for the same seed.
+    public World(int width, int height, int initialPopulation, long seed, boolean chunkedTerrain) {
+        // Every random source is split from the world seed, so a run replays from the seed alone
+        this(width, height, seed, new Rng(seed), chunkedTerrain, initialPopulation);
 
         // Create initial population on walkable terrain
         for (int i = 0; i < initialPopulation; i++) {
-            int x, y;
-            do {
-                x = rand.nextInt(width);
-                y = rand.nextInt(height);
-            } while (!terrain.getBiomeAt(x, y).isWalkable());
-
-            creatures.add(new Creature(
-                    Math.random() * 10,
-                    Math.random() * 10,
-                    Math.random() * 10,
-                    x, y
-            ));
+            long cell = randomWalkableCell();
+            addCreature(
+                    rand.nextDouble() * 10,
+                    rand.nextDouble() * 10,
+                    rand.nextDouble() * 10,
+                    (int) (cell >>> 32), (int) cell
+            );
         }
 
         // Spawn resources based on biomes
@@ -50,102 +91,209 @@ public class World {
         spawnEnemies(5);
     }
 
-    public void update() {
-        // Move creatures
-        for (Creature creature : creatures) {
-            boolean needsWater = creature.getThirst() > 70;
-            boolean needsFood = creature.getEnergy() < 80;
+    // Arguments evaluate left to right, so the terrain seed is drawn before the two splits
+    private World(int width, int height, long seed, Rng root, boolean chunkedTerrain, int capacity) {
+        this(width, height, seed, createTerrain(width, height, root.nextLong(), chunkedTerrain),
+                capacity, root.split(), root.split());
+    }
 
-            if (needsWater) {
-                Water nearestWater = findNearestWater(creature);
-                if (nearestWater != null) {
-                    double detectionRange = creature.getSense() * 20;
-                    if (creature.distanceTo(nearestWater.x, nearestWater.y) < detectionRange) {
-                        creature.moveTowards(nearestWater.x, nearestWater.y);
-                    }
-                }
-            } else if (needsFood) {
-                Food nearestFood = findNearestFood(creature);
-                if (nearestFood != null) {
-                    double detectionRange = creature.getSense() * 20;
-                    if (creature.distanceTo(nearestFood.x, nearestFood.y) < detectionRange) {
-                        creature.moveTowards(nearestFood.x, nearestFood.y);
-                    }
-                }
-            }
+    private World(int width, int height, long seed, Terrain terrain, int capacity,
+                  Rng rand, Rng entitySeeds) {
+        this.seed = seed;
+        this.width = width;
+        this.height = height;
+        this.terrain = terrain;
+        this.spawns = SpawnSampler.supports(terrain) ? new SpawnSampler(terrain) : null;
+        this.creatures = new CreatureStore(capacity);
+        this.food = new ResourceStore(256);
+        this.water = new ResourceStore(128);
+        this.foodView = food.asList(Food::new);
+        this.waterView = water.asList(Water::new);
+        this.enemies = new ArrayList<>();
+        this.creatureGrid = new SpatialGrid(width, height, GRID_CELL_SIZE);
+        this.foodGrid = new SpatialGrid(width, height, GRID_CELL_SIZE);
+        this.waterGrid = new SpatialGrid(width, height, GRID_CELL_SIZE);
+        this.waterField = ResourceField.supports(terrain)
+                ? new ResourceField(width, height, WATER_FIELD_CELL, MAX_SENSE_RANGE)
+                : null;
+        this.paths = Pathfinder.supports(terrain) ? new Pathfinder(terrain) : null;
+        this.generation = 1;
+        this.ticksSinceReproduction = 0;
+        this.rand = rand;
+        this.entitySeeds = entitySeeds;
+        if (TickProfiler.ENABLED) {
+            profiler.register();
+        }
+    }
 
-            // Apply biome speed modifier
-            Biome biome = terrain.getBiomeAt(creature.getX(), creature.getY());
-            creature.move(width, height, biome.getSpeedModifier());
+    private static Terrain createTerrain(int width, int height, long terrainSeed, boolean chunked) {
+        return chunked ? Terrain.chunked(width, height, terrainSeed) : new Terrain(width, height, terrainSeed);
+    }
+
+    // Writes the whole world to a memory-mapped checkpoint file; see WorldCheckpoint
+    public void save(Path file) throws IOException {
+        WorldCheckpoint.save(this, file);
+    }
+
+    // Restores a world that continues exactly where the saved one stopped
+    public static World load(Path file) throws IOException {
+        return WorldCheckpoint.load(file);
+    }
+
+    public void setParallelism(int threads) {
+        executor.shutdown();
+        executor = new TickExecutor(threads);
+    }
+
+    public int getParallelism() {
+        return executor.getThreads();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        if (TickProfiler.ENABLED) {
+            profiler.unregister();
+        }
+    }
+
+    // Null unless the JVM runs with -Devolution.profile=true
+    TickProfiler getProfiler() {
+        return profiler;
+    }
+
+    // Rows are appended at the end of every update; the caller still owns and closes the writer
+    public void setTelemetry(TelemetryWriter telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    public void update() {
+        int count = creatures.size();
+        births = 0;
+        starved = 0;
+        dehydrated = 0;
+        predated = 0;
+        if (TickProfiler.ENABLED) {
+            profiler.begin();
+        }
+
+        // Move creatures; each row reads the resource grids and writes only itself
+        executor.forEach(count, moveCreatures);
+        for (int i = 0; i < count; i++) {
+            creatureGrid.move(i, creatures.getX(i), creatures.getY(i));
+        }
+        if (TickProfiler.ENABLED) {
+            profiler.lap(TickProfiler.Phase.MOVE_CREATURES);
         }
 
         // Move enemies
-        for (Enemy enemy : enemies) {
-            Creature nearestCreature = findNearestCreature(enemy);
-            if (nearestCreature != null) {
-                double distance = enemy.distanceTo(nearestCreature.getX(), nearestCreature.getY());
-                if (distance < 150) {
-                    enemy.moveTowards(nearestCreature.getX(), nearestCreature.getY());
+        executor.forEach(enemies.size(), moveEnemies);
+        if (TickProfiler.ENABLED) {
+            profiler.addQueries(enemies.size());
+            profiler.lap(TickProfiler.Phase.MOVE_ENEMIES);
+        }
+
+        // Food consumption: claim in parallel, then settle contended food in index order
+        if (foodClaims.length < count) {
+            foodClaims = new int[creatures.capacity()];
+        }
+        executor.forEach(count, claimFood);
+        int consumedCount = 0;
+        for (int i = 0; i < count; i++) {
+            int foodId = foodClaims[i];
+            if (foodId >= 0 && !foodGrid.contains(foodId)) {
+                // Lost the claim to a lower index creature, fall back to what is left
+                foodId = foodGrid.nearest(creatures.getX(i), creatures.getY(i), 10);
+                if (TickProfiler.ENABLED) {
+                    profiler.addQueries(1);
                 }
             }
-            Biome biome = terrain.getBiomeAt(enemy.getX(), enemy.getY());
-            enemy.move(width, height, biome.getSpeedModifier());
-        }
-
-        // Food consumption
-        List<Food> consumedFood = new ArrayList<>();
-        for (Creature creature : creatures) {
-            for (Food f : food) {
-                if (creature.distanceTo(f.x, f.y) < 10) {
-                    creature.consume(50);
-                    consumedFood.add(f);
-                    break;
+            if (foodId >= 0) {
+                creatures.consume(i, 50);
+                foodGrid.remove(foodId);
+                if (consumedFood.length == consumedCount) {
+                    consumedFood = Arrays.copyOf(consumedFood, consumedCount * 2 + 16);
                 }
+                consumedFood[consumedCount++] = foodId;
             }
         }
-        food.removeAll(consumedFood);
+        // Removing in descending id order keeps the remaining consumed ids valid across swaps
+        Arrays.sort(consumedFood, 0, consumedCount);
+        for (int k = consumedCount - 1; k >= 0; k--) {
+            removeFood(consumedFood[k]);
+        }
+        if (TickProfiler.ENABLED) {
+            profiler.addQueries(count);
+            profiler.addRemoved(consumedCount);
+            profiler.lap(TickProfiler.Phase.FORAGE);
+        }
 
         // Water drinking
-        for (Creature creature : creatures) {
-            for (Water w : water) {
-                if (creature.distanceTo(w.x, w.y) < 15) {
-                    creature.drink(40);
-                    break;
-                }
-            }
+        executor.forEach(count, drinkWater);
+        if (TickProfiler.ENABLED) {
+            profiler.addQueries(count);
+            profiler.lap(TickProfiler.Phase.DRINK);
         }
 
-        // Enemy attacks
-        List<Creature> killedCreatures = new ArrayList<>();
-        for (Enemy enemy : enemies) {
-            for (Creature creature : creatures) {
-                if (enemy.distanceTo(creature.getX(), creature.getY()) < 15) {
-                    killedCreatures.add(creature);
-                    enemy.feed();
-                    break;
-                }
+        // Enemy attacks, in enemy order; victims leave the grid now and the store at cleanup
+        for (int e = 0; e < enemies.size(); e++) {
+            Enemy enemy = enemies.get(e);
+            int victimId = creatureGrid.nearest(enemy.getX(), enemy.getY(), 15);
+            if (victimId >= 0) {
+                creatureGrid.remove(victimId);
+                creatures.kill(victimId);
+                enemy.feed();
             }
         }
-        creatures.removeAll(killedCreatures);
+        if (TickProfiler.ENABLED) {
+            profiler.addQueries(enemies.size());
+            profiler.lap(TickProfiler.Phase.PREDATION);
+        }
 
         // Metabolism
-        for (Creature creature : creatures) {
-            creature.metabolize();
-            creature.increaseThirst();
+        executor.forEach(count, metabolize);
+        if (TickProfiler.ENABLED) {
+            profiler.lap(TickProfiler.Phase.METABOLISM);
         }
 
-        creatures.removeIf(c -> !c.isAlive());
+        // Dead creatures leave; survivors are tallied into this tick's energy and age histograms.
+        // Enemy victims are the dead that already left the grid.
+        stats.clearVitals();
+        for (int i = creatures.size() - 1; i >= 0; i--) {
+            if (!creatures.isAlive(i)) {
+                if (!creatureGrid.contains(i)) {
+                    predated++;
+                } else if (creatures.diedOfThirst(i)) {
+                    dehydrated++;
+                } else {
+                    starved++;
+                }
+                removeCreature(i);
+            } else {
+                stats.addVitals(creatures, i);
+            }
+        }
+        int enemiesBefore = enemies.size();
         enemies.removeIf(e -> !e.isAlive());
+        if (TickProfiler.ENABLED) {
+            profiler.addRemoved(starved + dehydrated + predated + enemiesBefore - enemies.size());
+            profiler.lap(TickProfiler.Phase.CLEANUP);
+        }
 
         // Reproduction
         ticksSinceReproduction++;
-        if (ticksSinceReproduction > 100) {
+        boolean generationEnded = ticksSinceReproduction > 100;
+        if (generationEnded) {
             reproduce();
             ticksSinceReproduction = 0;
             generation++;
         }
+        if (TickProfiler.ENABLED) {
+            profiler.addBirths(births);
+            profiler.lap(TickProfiler.Phase.REPRODUCTION);
+        }
 
         // Spawn resources in biomes
+        int entitiesBefore = TickProfiler.ENABLED ? entityCount() : 0;
         if (rand.nextInt(10) == 0) {
             spawnFoodInBiomes(3);
         }
@@ -159,125 +307,370 @@ public class World {
         // Prevent extinction
         if (creatures.isEmpty()) {
             for (int i = 0; i < 20; i++) {
-                int x, y;
-                do {
-                    x = rand.nextInt(width);
-                    y = rand.nextInt(height);
-                } while (!terrain.getBiomeAt(x, y).isWalkable());
-
-                creatures.add(new Creature(
-                        Math.random() * 10,
-                        Math.random() * 10,
-                        Math.random() * 10,
-                        x, y
-                ));
+                long cell = randomWalkableCell();
+                addCreature(
+                        rand.nextDouble() * 10,
+                        rand.nextDouble() * 10,
+                        rand.nextDouble() * 10,
+                        (int) (cell >>> 32), (int) cell
+                );
+            }
+            births += 20;
+        }
+        if (TickProfiler.ENABLED) {
+            profiler.addSpawned(entityCount() - entitiesBefore);
+            profiler.lap(TickProfiler.Phase.SPAWN);
+        }
+
+        if (telemetry != null) {
+            telemetry.recordTick(this);
+            if (generationEnded) {
+                telemetry.recordGeneration(this);
             }
         }
+        if (TickProfiler.ENABLED) {
+            profiler.lap(TickProfiler.Phase.TELEMETRY);
+            profiler.endTick();
+        }
     }
 
-    private void spawnFoodInBiomes(int amount) {
-        for (int i = 0; i < amount; i++) {
-            int x = rand.nextInt(width);
-            int y = rand.nextInt(height);
-            Biome biome = terrain.getBiomeAt(x, y);
+    private int entityCount() {
+        return creatures.size() + food.size() + water.size() + enemies.size();
+    }
 
-            if (biome.getFoodSpawnRate() > 0 && rand.nextInt(20) < biome.getFoodSpawnRate()) {
-                food.add(new Food(x, y));
+    // Each of the amount attempts spawns with probability spawnRate / 20 of a uniformly random cell
+    void spawnFoodInBiomes(int amount) {
+        for (int i = 0; i < amount; i++) {
+            long cell = resourceCell(true);
+            if (cell >= 0) {
+                int x = (int) (cell >>> 32);
+                int y = (int) cell;
+                foodGrid.insert(food.add(x, y), x, y);
             }
         }
     }
 
     private void spawnWaterInBiomes(int amount) {
         for (int i = 0; i < amount; i++) {
-            int x = rand.nextInt(width);
-            int y = rand.nextInt(height);
-            Biome biome = terrain.getBiomeAt(x, y);
-
-            if (biome.getWaterSpawnRate() > 0 && rand.nextInt(20) < biome.getWaterSpawnRate()) {
-                water.add(new Water(x, y));
+            long cell = resourceCell(false);
+            if (cell >= 0) {
+                int x = (int) (cell >>> 32);
+                int y = (int) cell;
+                addWater(x, y);
             }
         }
     }
 
+    private void addWater(int x, int y) {
+        int id = water.add(x, y);
+        waterGrid.insert(id, x, y);
+        if (waterField != null) {
+            waterField.add(id, x, y);
+        }
+    }
+
     private void spawnEnemies(int amount) {
         for (int i = 0; i < amount; i++) {
-            int x, y;
-            do {
-                x = rand.nextInt(width);
-                y = rand.nextInt(height);
-            } while (!terrain.getBiomeAt(x, y).isWalkable());
+            long cell = randomWalkableCell();
+            enemies.add(new Enemy((int) (cell >>> 32), (int) cell, entitySeeds.nextLong()));
+        }
+    }
 
-            enemies.add(new Enemy(x, y));
+    // Spawn cells are packed as x << 32 | y
+    private long randomWalkableCell() {
+        if (spawns != null) {
+            if (!spawns.hasWalkableCells()) {
+                throw new IllegalStateException("Terrain has no walkable cells to spawn on");
+            }
+            return packCell(spawns.walkableCell(rand));
+        }
+        int x, y;
+        do {
+            x = rand.nextInt(width);
+            y = rand.nextInt(height);
+        } while (!terrain.isWalkable(x, y));
+        return ((long) x << 32) | y;
+    }
+
+    // One resource spawn attempt; -1 when it does not spawn
+    private long resourceCell(boolean isFood) {
+        if (spawns != null) {
+            int cell = isFood ? spawns.foodCell(rand) : spawns.waterCell(rand);
+            return cell < 0 ? -1 : packCell(cell);
+        }
+        int x = rand.nextInt(width);
+        int y = rand.nextInt(height);
+        int spawnRate = isFood ? terrain.getFoodSpawnRateAt(x, y) : terrain.getWaterSpawnRateAt(x, y);
+        if (spawnRate > 0 && rand.nextInt(SpawnSampler.RATE_SCALE) < spawnRate) {
+            return ((long) x << 32) | y;
         }
+        return -1;
     }
 
-    private Food findNearestFood(Creature creature) {
-        Food nearest = null;
-        double minDist = Double.MAX_VALUE;
+    private long packCell(int cell) {
+        return ((long) (cell % width) << 32) | (cell / width);
+    }
 
-        for (Food f : food) {
-            double dist = creature.distanceTo(f.x, f.y);
-            if (dist < minDist) {
-                minDist = dist;
-                nearest = f;
+    private void moveCreatures(int from, int to) {
+        int queries = 0;
+        for (int i = from; i < to; i++) {
+            boolean needsWater = creatures.getThirst(i) > 70;
+            boolean needsFood = creatures.getEnergy(i) < 80;
+            double detectionRange = creatures.getSense(i) * SENSE_RANGE_PER_POINT;
+            if (needsWater || needsFood) {
+                queries++;
             }
+
+            if (needsWater) {
+                int nearestWater = findWater(i, detectionRange);
+                if (nearestWater >= 0) {
+                    steerCreature(i, water.getX(nearestWater), water.getY(nearestWater));
+                }
+            } else if (needsFood) {
+                int nearestFood = foodGrid.nearest(creatures.getX(i), creatures.getY(i), detectionRange);
+                if (nearestFood >= 0) {
+                    steerCreature(i, food.getX(nearestFood), food.getY(nearestFood));
+                }
+            }
+
+            // Apply biome speed modifier
+            double speedModifier = terrain.getSpeedModifierAt(creatures.getX(i), creatures.getY(i));
+            creatures.move(i, terrain, speedModifier);
         }
+        if (TickProfiler.ENABLED) {
+            profiler.addQueries(queries);
+        }
+    }
 
-        return nearest;
+    private void moveEnemies(int from, int to) {
+        for (int i = from; i < to; i++) {
+            Enemy enemy = enemies.get(i);
+            int target = creatureGrid.nearest(enemy.getX(), enemy.getY(), ENEMY_CHASE_RANGE);
+            if (target >= 0) {
+                long waypoint = waypoint(enemy.getX(), enemy.getY(), creatures.getX(target), creatures.getY(target));
+                if (waypoint >= 0) {
+                    enemy.moveTowards((int) (waypoint >>> 32), (int) waypoint);
+                }
+            }
+            double speedModifier = terrain.getSpeedModifierAt(enemy.getX(), enemy.getY());
+            enemy.move(terrain, speedModifier);
+        }
     }
 
-    private Water findNearestWater(Creature creature) {
-        Water nearest = null;
-        double minDist = Double.MAX_VALUE;
+    private void steerCreature(int i, int targetX, int targetY) {
+        long waypoint = waypoint(creatures.getX(i), creatures.getY(i), targetX, targetY);
+        if (waypoint >= 0) {
+            creatures.moveTowards(i, (int) (waypoint >>> 32), (int) waypoint);
+        }
+    }
 
-        for (Water w : water) {
-            double dist = creature.distanceTo(w.x, w.y);
-            if (dist < minDist) {
-                minDist = dist;
-                nearest = w;
-            }
+    // Next point to steer at on the way to the target, packed as x << 32 | y, or -1 if it is out of reach
+    private long waypoint(int x, int y, int targetX, int targetY) {
+        if (paths == null) {
+            return ((long) targetX << 32) | targetY;
         }
+        return paths.waypoint(x, y, targetX, targetY);
+    }
 
-        return nearest;
+    // One field read on eager terrain. The field holds the source nearest the centre of the
+    // creature's cell, which is within half a cell diagonal of the creature, so it can be out of
+    // range while another source is in range only if it lies less than a full diagonal past the
+    // range; just that band falls back to the grid, which keeps the answer exact
+    private int findWater(int creature, double range) {
+        int x = creatures.getX(creature);
+        int y = creatures.getY(creature);
+        if (waterField == null) {
+            return waterGrid.nearest(x, y, range);
+        }
+        int id = waterField.nearest(x, y);
+        if (id < 0) {
+            return -1;
+        }
+        long dx = water.getX(id) - x;
+        long dy = water.getY(id) - y;
+        long distSq = dx * dx + dy * dy;
+        if (distSq < range * range) {
+            return id;
+        }
+        double band = range + 2 * WATER_FIELD_CELL * Math.sqrt(0.5);
+        return distSq < band * band ? waterGrid.nearest(x, y, range) : -1;
     }
 
-    private Creature findNearestCreature(Enemy enemy) {
-        Creature nearest = null;
-        double minDist = Double.MAX_VALUE;
+    private void claimFood(int from, int to) {
+        for (int i = from; i < to; i++) {
+            foodClaims[i] = foodGrid.nearest(creatures.getX(i), creatures.getY(i), 10);
+        }
+    }
 
-        for (Creature c : creatures) {
-            double dist = enemy.distanceTo(c.getX(), c.getY());
-            if (dist < minDist) {
-                minDist = dist;
-                nearest = c;
+    private void drinkWater(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (waterGrid.nearest(creatures.getX(i), creatures.getY(i), 15) >= 0) {
+                creatures.drink(i, 40);
             }
         }
+    }
 
-        return nearest;
+    private void metabolize(int from, int to) {
+        for (int i = from; i < to; i++) {
+            creatures.metabolize(i);
+            creatures.increaseThirst(i);
+        }
     }
 
-    private void reproduce() {
-        List<Creature> parents = new ArrayList<>();
-        for (Creature c : creatures) {
-            if (c.canReproduce()) {
-                parents.add(c);
-            }
+    private void addCreature(double speed, double size, double sense, int x, int y) {
+        int id = creatures.add(speed, size, sense, x, y, entitySeeds.nextLong());
+        creatureHandles.allocate(id);
+        creatureGrid.insert(id, x, y);
+        stats.addCreature(creatures, id);
+    }
+
+    // Swap-removes so the grid ids of all other creatures stay dense; handles follow the moved row
+    private void removeCreature(int id) {
+        stats.removeTraits(creatures, id);
+        creatureGrid.remove(id);
+        creatureHandles.release(id);
+        int moved = creatures.swapRemove(id);
+        if (moved >= 0) {
+            creatureGrid.relabel(moved, id);
+            creatureHandles.move(moved, id);
         }
+    }
 
-        parents.sort((a, b) -> Double.compare(b.getFitness(), a.getFitness()));
+    private void removeFood(int id) {
+        foodGrid.remove(id);
+        int moved = food.swapRemove(id);
+        if (moved >= 0) {
+            foodGrid.relabel(moved, id);
+        }
+    }
 
-        int numParents = Math.min(parents.size(), parents.size() / 2);
+    void reproduce() {
+        int numParents = selectParents();
         for (int i = 0; i < numParents - 1; i += 2) {
             if (i + 1 < numParents) {
-                Creature parent1 = parents.get(i);
-                Creature parent2 = parents.get(i + 1);
+                int parent1 = (int) selectionKeys[i];
+                int parent2 = (int) selectionKeys[i + 1];
+
+                spendReproductionEnergy(parent1);
+                spendReproductionEnergy(parent2);
+
+                int child = creatures.reproduce(parent1, parent2, entitySeeds.nextLong());
+                if (!terrain.isWalkable(creatures.getX(child), creatures.getY(child))) {
+                    // Parents on opposite shores would put the child in the water between them
+                    creatures.setPosition(child, creatures.getX(parent1), creatures.getY(parent1));
+                }
+                creatureHandles.allocate(child);
+                creatureGrid.insert(child, creatures.getX(child), creatures.getY(child));
+                stats.addCreature(creatures, child);
+                births++;
+            }
+        }
+    }
+
+    private void spendReproductionEnergy(int parent) {
+        stats.removeVitals(creatures, parent);
+        creatures.spendReproductionEnergy(parent);
+        stats.addVitals(creatures, parent);
+    }
+
+    // Leaves the fittest parents at the front of selectionKeys and returns how many to pair
+    int selectParents() {
+        // Sort keys pack descending fitness above ascending index, matching a stable sort
+        int numCandidates = 0;
+        if (selectionKeys.length < creatures.size()) {
+            selectionKeys = new long[creatures.size()];
+        }
+        for (int i = 0; i < creatures.size(); i++) {
+            if (creatures.canReproduce(i)) {
+                int bits = Float.floatToIntBits((float) creatures.getFitness(i));
+                int ordered = bits ^ ((bits >> 31) & 0x7fffffff);
+                selectionKeys[numCandidates++] = ((long) ~ordered << 32) | i;
+            }
+        }
+
+        Arrays.sort(selectionKeys, 0, numCandidates);
 
-                parent1.spendReproductionEnergy();
-                parent2.spendReproductionEnergy();
+        return Math.min(numCandidates, numCandidates / 2);
+    }
+
+    // Terrain is stored as its generation parameters and regenerated on load
+    long stateBytes() {
+        return STATE_HEADER_BYTES
+                + (long) creatures.size() * CreatureStore.CHECKPOINT_BYTES
+                + 2L * Integer.BYTES * (food.size() + water.size())
+                + (long) enemies.size() * Enemy.CHECKPOINT_BYTES;
+    }
 
-                creatures.add(parent1.reproduce(parent2, width, height));
+    void writeState(ByteBuffer out) {
+        out.putInt(width).putInt(height).putLong(seed);
+        out.putLong(rand.getState()).putLong(entitySeeds.getState());
+        out.putInt(generation).putInt(ticksSinceReproduction);
+
+        out.putInt(terrain.isChunked() ? 1 : 0).putLong(terrain.getSeed())
+                .putInt(terrain.getSmoothingRadius()).putInt(terrain.getChunkSize())
+                .putInt(terrain.getMaxChunks()).putLong(terrain.heightFingerprint());
+
+        out.putInt(creatures.size()).putInt(food.size()).putInt(water.size()).putInt(enemies.size());
+        creatures.writeTo(out);
+        food.writeTo(out);
+        water.writeTo(out);
+        for (Enemy enemy : enemies) {
+            enemy.writeTo(out);
+        }
+    }
+
+    static World readState(ByteBuffer in) throws IOException {
+        int width = in.getInt();
+        int height = in.getInt();
+        long seed = in.getLong();
+        Rng rand = new Rng(in.getLong());
+        Rng entitySeeds = new Rng(in.getLong());
+        int generation = in.getInt();
+        int ticksSinceReproduction = in.getInt();
+
+        boolean chunked = in.getInt() != 0;
+        long terrainSeed = in.getLong();
+        int radius = in.getInt();
+        int chunkSize = in.getInt();
+        int maxChunks = in.getInt();
+        long fingerprint = in.getLong();
+        Terrain terrain = chunked
+                ? Terrain.chunked(width, height, terrainSeed, radius, chunkSize, maxChunks)
+                : new Terrain(width, height, terrainSeed, radius);
+        if (terrain.heightFingerprint() != fingerprint) {
+            throw new IOException("Terrain regenerated from the checkpoint does not match the saved terrain");
+        }
+
+        int creatureCount = in.getInt();
+        int foodCount = in.getInt();
+        int waterCount = in.getInt();
+        int enemyCount = in.getInt();
+        World world = new World(width, height, seed, terrain, creatureCount, rand, entitySeeds);
+        world.generation = generation;
+        world.ticksSinceReproduction = ticksSinceReproduction;
+
+        // Grids and handles are rebuilt rather than saved; nearest() does not depend on insertion order
+        world.creatures.readFrom(in, creatureCount);
+        for (int i = 0; i < creatureCount; i++) {
+            world.creatureHandles.allocate(i);
+            world.creatureGrid.insert(i, world.creatures.getX(i), world.creatures.getY(i));
+            world.stats.addCreature(world.creatures, i);
+        }
+        world.food.readFrom(in, foodCount);
+        for (int i = 0; i < foodCount; i++) {
+            world.foodGrid.insert(i, world.food.getX(i), world.food.getY(i));
+        }
+        world.water.readFrom(in, waterCount);
+        for (int i = 0; i < waterCount; i++) {
+            world.waterGrid.insert(i, world.water.getX(i), world.water.getY(i));
+            if (world.waterField != null) {
+                world.waterField.add(i, world.water.getX(i), world.water.getY(i));
             }
         }
+        for (int i = 0; i < enemyCount; i++) {
+            world.enemies.add(Enemy.readFrom(in));
+        }
+        return world;
     }
 
     public Terrain getTerrain() {
@@ -285,14 +678,37 @@ public class World {
     }
 
     public List<Creature> getCreatures() {
+        return creatures.asList();
+    }
+
+    // Creature indices shift as others die; a handle keeps naming the same creature until it dies
+    public long getCreatureHandle(int index) {
+        return creatureHandles.handleOf(index);
+    }
+
+    // Current index of the creature, or -1 once it has died
+    public int findCreature(long handle) {
+        return creatureHandles.rowOf(handle);
+    }
+
+    public CreatureStore getCreatureStore() {
         return creatures;
     }
 
+    // Read-only views; every element is a copy, so hot paths should use the stores instead
     public List<Food> getFood() {
-        return food;
+        return foodView;
     }
 
     public List<Water> getWater() {
+        return waterView;
+    }
+
+    public ResourceStore getFoodStore() {
+        return food;
+    }
+
+    public ResourceStore getWaterStore() {
         return water;
     }
 
@@ -300,6 +716,10 @@ public class World {
         return enemies;
     }
 
+    public long getSeed() {
+        return seed;
+    }
+
     public int getGeneration() {
         return generation;
     }
@@ -312,15 +732,35 @@ public class World {
         return height;
     }
 
+    public int getBirths() {
+        return births;
+    }
+
+    public int getStarvationDeaths() {
+        return starved;
+    }
+
+    public int getThirstDeaths() {
+        return dehydrated;
+    }
+
+    public int getPredationDeaths() {
+        return predated;
+    }
+
+    public PopulationStats getStats() {
+        return stats;
+    }
+
     public double getAverageSpeed() {
-        return creatures.stream().mapToDouble(Creature::getSpeed).average().orElse(0);
+        return stats.getSpeed().getMean();
     }
 
     public double getAverageSize() {
-        return creatures.stream().mapToDouble(Creature::getSize).average().orElse(0);
+        return stats.getSize().getMean();
     }
 
     public double getAverageSense() {
-        return creatures.stream().mapToDouble(Creature::getSense).average().orElse(0);
+        return stats.getSense().getMean();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,60 @@
+package net.saturn;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Binary world snapshot written through a memory-mapped file. Creature columns go out as bulk
+// array copies, so saving and loading cost about one memcpy of the store plus the page cache
+// flush. Terrain is not stored; it is regenerated from its seed and checked against a fingerprint.
+final class WorldCheckpoint {
+    private static final int MAGIC = 0x45564F57; // "EVOW"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    private WorldCheckpoint() {
+    }
+
+    static void save(World world, Path file) throws IOException {
+        long size = HEADER_BYTES + world.stateBytes();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Checkpoint of " + size + " bytes exceeds the 2 GB mapping limit");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION);
+            world.writeState(buffer);
+            buffer.force();
+        }
+    }
+
+    static World load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a world checkpoint: " + file);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a world checkpoint: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version + " in " + file);
+            }
+            try {
+                return World.readState(buffer);
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Truncated world checkpoint: " + file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package net.saturn;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class EntityHandlesTest {
+    @Test
+    void handleGoesStaleAfterRelease() {
+        EntityHandles handles = new EntityHandles();
+        long handle = handles.allocate(0);
+        assertEquals(0, handles.rowOf(handle));
+
+        handles.release(0);
+        assertEquals(-1, handles.rowOf(handle));
+        assertEquals(-1, handles.rowOf(EntityHandles.NONE));
+    }
+
+    @Test
+    void reusedSlotGetsNewGeneration() {
+        EntityHandles handles = new EntityHandles();
+        long first = handles.allocate(0);
+        handles.release(0);
+        long second = handles.allocate(0);
+
+        assertEquals((int) first, (int) second, "slot should be reused");
+        assertNotEquals(first, second);
+        assertEquals(-1, handles.rowOf(first));
+        assertEquals(0, handles.rowOf(second));
+    }
+
+    @Test
+    void handleFollowsMoveAfterSwapRemove() {
+        // Rows 0..4 as a swap-removed store would hold them
+        EntityHandles handles = new EntityHandles();
+        long[] issued = new long[5];
+        for (int row = 0; row < issued.length; row++) {
+            issued[row] = handles.allocate(row);
+        }
+
+        // Remove row 1: the last row moves into the hole
+        handles.release(1);
+        handles.move(4, 1);
+
+        assertEquals(-1, handles.rowOf(issued[1]));
+        assertEquals(1, handles.rowOf(issued[4]));
+        assertEquals(issued[4], handles.handleOf(1));
+        assertEquals(0, handles.rowOf(issued[0]));
+        assertEquals(2, handles.rowOf(issued[2]));
+        assertEquals(3, handles.rowOf(issued[3]));
+
+        // The freed slot goes to the next row appended, without reviving the old handle
+        long appended = handles.allocate(4);
+        assertEquals(4, handles.rowOf(appended));
+        assertEquals(-1, handles.rowOf(issued[1]));
+    }
+}
@@ -0,0 +1,54 @@
+package net.saturn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResourceFieldTest {
+    private static final int WIDTH = 203;
+    private static final int HEIGHT = 149;
+    private static final int CELL = 4;
+    private static final double REACH = 30;
+
+    @Test
+    void matchesBruteForceAfterRandomAdds() {
+        Random rand = new Random(7);
+        ResourceStore store = new ResourceStore(16);
+        ResourceField field = new ResourceField(WIDTH, HEIGHT, CELL, REACH);
+
+        for (int step = 0; step < 1500; step++) {
+            // A few clustered duplicates exercise the lowest-id tie rule
+            int x = rand.nextInt(8) == 0 && store.size() > 0 ? store.getX(0) : rand.nextInt(WIDTH);
+            int y = rand.nextInt(8) == 0 && store.size() > 0 ? store.getY(0) : rand.nextInt(HEIGHT);
+            field.add(store.add(x, y), x, y);
+            if (step % 50 == 0) {
+                assertMatches(store, field);
+            }
+        }
+        assertMatches(store, field);
+    }
+
+    private static void assertMatches(ResourceStore store, ResourceField field) {
+        double reach = REACH + CELL * Math.sqrt(0.5);
+        for (int y = 0; y < HEIGHT; y += CELL) {
+            for (int x = 0; x < WIDTH; x += CELL) {
+                long centreX = x / CELL * CELL + CELL / 2;
+                long centreY = y / CELL * CELL + CELL / 2;
+                int expected = -1;
+                long best = Long.MAX_VALUE;
+                for (int id = 0; id < store.size(); id++) {
+                    long dx = store.getX(id) - centreX;
+                    long dy = store.getY(id) - centreY;
+                    long d = dx * dx + dy * dy;
+                    if (d < reach * reach && d < best) {
+                        best = d;
+                        expected = id;
+                    }
+                }
+                assertEquals(expected, field.nearest(x, y), "cell at " + x + "," + y);
+            }
+        }
+    }
+}
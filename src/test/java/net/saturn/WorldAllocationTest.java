@@ -0,0 +1,57 @@
+package net.saturn;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class WorldAllocationTest {
+    private static final int WARMUP_TICKS = 2000;
+    private static final int MEASURED_TICKS = 1000;
+    // Food attempts per tick on top of the natural spawn, enough to keep births ahead of deaths
+    private static final int FOOD_PER_TICK = 20;
+    private static final int MIN_POPULATION = 300;
+    // Occasional extinction-recovery spawns and store growth still allocate, so the budget is not zero
+    private static final double BYTES_PER_TICK = 64;
+
+    @Test
+    void steadyStateUpdateAllocatesAlmostNothing() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        // Left alone, enemies eat the population down to a handful within a few hundred ticks,
+        // so they are removed and food topped up to keep hundreds foraging, drinking and breeding
+        World world = new World(600, 400, 500, 42);
+        for (int t = 0; t < WARMUP_TICKS; t++) {
+            tick(world);
+        }
+        assertTrue(world.getCreatureStore().size() >= MIN_POPULATION,
+                "population fell to " + world.getCreatureStore().size() + " during warmup");
+
+        // A single-threaded executor runs every phase on this thread, so its counter sees it all
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        int minPopulation = Integer.MAX_VALUE;
+        int births = 0;
+        for (int t = 0; t < MEASURED_TICKS; t++) {
+            tick(world);
+            minPopulation = Math.min(minPopulation, world.getCreatureStore().size());
+            births += world.getBirths();
+        }
+        double perTick = (threads.getThreadAllocatedBytes(thread) - before) / (double) MEASURED_TICKS;
+
+        assertTrue(minPopulation >= MIN_POPULATION, "population fell to " + minPopulation);
+        assertTrue(births > 0, "no creature was born while measuring");
+        assertTrue(perTick < BYTES_PER_TICK, "update() allocated " + perTick + " bytes per tick");
+    }
+
+    private static void tick(World world) {
+        world.getEnemies().clear();
+        world.spawnFoodInBiomes(FOOD_PER_TICK);
+        world.update();
+    }
+}
@@ -0,0 +1,69 @@
+package net.saturn;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+// Vector API version of PerlinNoise.fillCellScalar. Every lane performs the same IEEE operations in
+// the same order as the scalar loop, with no fused multiply-add, so both paths give identical bits.
+// Lives in its own source set, the only one compiled against the incubator module.
+final class PerlinNoiseVector {
+    // Layout of the per-cell terms both row samplers read. Compile-time constants, so PerlinNoise
+    // can use them without loading this class when the incubator module is absent.
+    static final int AA_X = 0, AA_C = 1, BA_X = 2, BA_C = 3, AB_X = 4, AB_C = 5, BB_X = 6, BB_C = 7;
+    static final int CELL_TERMS = 8;
+
+    private static final VectorSpecies<Double> D = DoubleVector.SPECIES_PREFERRED;
+    private static final double[] LANE_OFFSETS = new double[D.length()];
+
+    static {
+        for (int lane = 0; lane < LANE_OFFSETS.length; lane++) {
+            LANE_OFFSETS[lane] = lane;
+        }
+    }
+
+    private PerlinNoiseVector() {
+    }
+
+    static boolean isUsable() {
+        return D.length() > 1;
+    }
+
+    // Fills whole vectors of one lattice cell and returns the first index left for the scalar tail
+    static int fillCell(int startX, int from, int to, double frequency, double floorX, double v,
+                        double[] cell, double[] out) {
+        int lanes = D.length();
+        if (to - from < lanes) {
+            return from;
+        }
+
+        DoubleVector laneOffsets = DoubleVector.fromArray(D, LANE_OFFSETS, 0);
+        DoubleVector aaX = DoubleVector.broadcast(D, cell[AA_X]);
+        DoubleVector aaC = DoubleVector.broadcast(D, cell[AA_C]);
+        DoubleVector baX = DoubleVector.broadcast(D, cell[BA_X]);
+        DoubleVector baC = DoubleVector.broadcast(D, cell[BA_C]);
+        DoubleVector abX = DoubleVector.broadcast(D, cell[AB_X]);
+        DoubleVector abC = DoubleVector.broadcast(D, cell[AB_C]);
+        DoubleVector bbX = DoubleVector.broadcast(D, cell[BB_X]);
+        DoubleVector bbC = DoubleVector.broadcast(D, cell[BB_C]);
+
+        int j = from;
+        for (; j + lanes <= to; j += lanes) {
+            // (startX + j + lane) is an exact integer in double, so this matches the scalar product
+            DoubleVector xf = laneOffsets.add((double) (startX + j)).mul(frequency).sub(floorX);
+            DoubleVector xfMinusOne = xf.sub(1.0);
+            DoubleVector u = fade(xf);
+            DoubleVector x1 = lerp(aaX.mul(xf).add(aaC), baX.mul(xfMinusOne).add(baC), u);
+            DoubleVector x2 = lerp(abX.mul(xf).add(abC), bbX.mul(xfMinusOne).add(bbC), u);
+            x2.sub(x1).mul(v).add(x1).add(1.0).div(2.0).intoArray(out, j);
+        }
+        return j;
+    }
+
+    private static DoubleVector fade(DoubleVector t) {
+        return t.mul(t).mul(t).mul(t.mul(t.mul(6.0).sub(15.0)).add(10.0));
+    }
+
+    private static DoubleVector lerp(DoubleVector a, DoubleVector b, DoubleVector t) {
+        return a.add(t.mul(b.sub(a)));
+    }
+}